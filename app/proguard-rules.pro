@@ -18,4 +18,29 @@
 
 # If you keep the line number information, uncomment this to
 # hide the original source file name.
-#-renamesourcefileattribute SourceFile
\ No newline at end of file
+#-renamesourcefileattribute SourceFile
+
+# --- Gson models ---
+# Death, Data and HistoryResponse are bound by field name (no @SerializedName), and
+# GroundedResponse is bound reflectively for Gemini responses and saved figures.
+-keep class com.altf4.figuremortis.Death { <init>(); <fields>; }
+-keep class com.altf4.figuremortis.Data { <init>(); <fields>; }
+-keep class com.altf4.figuremortis.HistoryResponse { <init>(); <fields>; }
+-keep class com.altf4.figuremortis.GeminiResponse { <init>(); <fields>; }
+-keep class com.altf4.figuremortis.service.GroundedResponse { <init>(); <fields>; }
+-keepclassmembers,allowobfuscation class * {
+    @com.google.gson.annotations.SerializedName <fields>;
+}
+
+# Gson reads generic types (e.g. List<Map<String, String>> for sources) from TypeToken subclasses.
+-keepattributes Signature
+-keep,allowobfuscation,allowshrinking class com.google.gson.reflect.TypeToken
+-keep,allowobfuscation,allowshrinking class * extends com.google.gson.reflect.TypeToken
+
+# --- Retrofit ---
+# R8 full mode strips generic signatures from types it cannot see being kept; Retrofit needs
+# them on Call and Response to resolve HistoryApiService's return types.
+-keepattributes RuntimeVisibleAnnotations, RuntimeVisibleParameterAnnotations, AnnotationDefault
+-keep,allowobfuscation,allowshrinking interface retrofit2.Call
+-keep,allowobfuscation,allowshrinking class retrofit2.Response
+-keep,allowobfuscation interface com.altf4.figuremortis.HistoryApiService { *; }
@@ -0,0 +1,152 @@
+package com.altf4.figuremortis;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.altf4.figuremortis.db.DatabaseHelper;
+import com.altf4.figuremortis.service.GeminiPayloads;
+import com.altf4.figuremortis.service.GroundedResponse;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Compares a library stored as TEXT with one compressed by the trained dictionary: database size,
+ * bulk write throughput, and cold reads through a new helper, which has no dictionary cached.
+ * Results are logged under {@value #TAG}.
+ *
+ * <p>The figures are variations of the one recorded biography, so they have more in common than
+ * a real library and the size ratio here is a best case.
+ */
+@RunWith(AndroidJUnit4.class)
+public class BiographyStorageBenchmarkTest {
+
+    private static final String TAG = "StorageBenchmark";
+    private static final String PLAIN_DB = "benchmark-plain.db";
+    private static final String COMPRESSED_DB = "benchmark-compressed.db";
+    private static final int FIGURES = 500;
+    private static final int OPENED = 50;
+
+    private Context context;
+    private GroundedResponse recorded;
+
+    @Before
+    public void setUp() throws Exception {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        deleteDatabases();
+        recorded = GeminiPayloads.parseGroundedResponse(FakeApiServer.read(
+                InstrumentationRegistry.getInstrumentation().getContext().getAssets(), "recorded/gemini_generate_content.json"));
+    }
+
+    @After
+    public void tearDown() {
+        deleteDatabases();
+    }
+
+    @Test
+    public void compressedLibrary_isSmallerAndReadable() {
+        Result plain = measure(PLAIN_DB, false);
+        Result compressed = measure(COMPRESSED_DB, true);
+        Log.i(TAG, "plain: " + plain);
+        Log.i(TAG, "compressed: " + compressed);
+
+        assertTrue("Compressed " + compressed.bytes + " B, plain " + plain.bytes + " B", compressed.bytes < plain.bytes);
+    }
+
+    private Result measure(String name, boolean compress) {
+        Result result = new Result();
+        // The first half is saved before a dictionary exists, as in a library that opts in later.
+        DatabaseHelper db = new DatabaseHelper(context, name, compress);
+        db.saveFigures(figures(0, FIGURES / 2), null);
+        long start = SystemClock.elapsedRealtimeNanos();
+        result.migrated = db.migrateStorage();
+        result.migrateMs = (SystemClock.elapsedRealtimeNanos() - start) / 1_000_000;
+
+        List<DatabaseHelper.NewFigure> second = figures(FIGURES / 2, FIGURES);
+        start = SystemClock.elapsedRealtimeNanos();
+        db.saveFigures(second, null);
+        result.writesPerSecond = second.size() * 1_000_000_000L / (SystemClock.elapsedRealtimeNanos() - start);
+        db.getWritableDatabase().execSQL("VACUUM");
+        db.close();
+        result.bytes = context.getDatabasePath(name).length();
+
+        DatabaseHelper cold = new DatabaseHelper(context, name, compress);
+        start = SystemClock.elapsedRealtimeNanos();
+        List<DatabaseHelper.FigureSummary> summaries = cold.getFigureSummaries();
+        result.listMs = (SystemClock.elapsedRealtimeNanos() - start) / 1_000_000.0;
+        assertEquals(FIGURES, summaries.size());
+        start = SystemClock.elapsedRealtimeNanos();
+        for (int i = 0; i < OPENED; i++) {
+            GroundedResponse figure = cold.getFigure(summaries.get(i * summaries.size() / OPENED).id);
+            assertNotNull(figure.details);
+            assertNotNull(figure.sources);
+        }
+        result.openMs = (SystemClock.elapsedRealtimeNanos() - start) / 1_000_000.0 / OPENED;
+        cold.close();
+        return result;
+    }
+
+    /**
+     * Rearranges the recorded biography's sentences and varies its source URLs per figure, so rows
+     * are not identical.
+     */
+    private List<DatabaseHelper.NewFigure> figures(int from, int to) {
+        List<String> sentences = Arrays.asList(recorded.details.split("(?<=\\.) "));
+        List<DatabaseHelper.NewFigure> figures = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            Random random = new Random(i);
+            List<String> shuffled = new ArrayList<>(sentences);
+            Collections.shuffle(shuffled, random);
+            GroundedResponse response = new GroundedResponse();
+            response.name = "Figure " + i;
+            response.birth = "Around " + (400 + i) + " AD [1]";
+            response.details = String.join(" ", shuffled.subList(0, 3 + random.nextInt(shuffled.size() - 3)));
+            response.sources = new ArrayList<>();
+            for (Map<String, String> source : recorded.sources) {
+                for (Map.Entry<String, String> entry : source.entrySet()) {
+                    Map<String, String> renumbered = new HashMap<>();
+                    renumbered.put(entry.getKey(), entry.getValue() + "?figure=" + i);
+                    response.sources.add(renumbered);
+                }
+            }
+            figures.add(new DatabaseHelper.NewFigure(response, String.valueOf(500 + i)));
+        }
+        return figures;
+    }
+
+    private void deleteDatabases() {
+        context.deleteDatabase(PLAIN_DB);
+        context.deleteDatabase(COMPRESSED_DB);
+    }
+
+    private static final class Result {
+        long bytes;
+        int migrated;
+        long migrateMs;
+        long writesPerSecond;
+        double listMs;
+        double openMs;
+
+        @Override
+        public String toString() {
+            return bytes + " B, " + writesPerSecond + " writes/s, migrated " + migrated + " rows in " + migrateMs
+                    + " ms, cold list " + listMs + " ms, cold open " + openMs + " ms/figure";
+        }
+    }
+}
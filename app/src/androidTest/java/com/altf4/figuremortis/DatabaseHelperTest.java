@@ -0,0 +1,97 @@
+package com.altf4.figuremortis;
+
+import android.content.Context;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.altf4.figuremortis.db.DatabaseHelper;
+import com.altf4.figuremortis.service.GroundedResponse;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Saving a figure twice must refresh the saved row, whatever form its death year takes.
+ */
+@RunWith(AndroidJUnit4.class)
+public class DatabaseHelperTest {
+
+    private static final String DB = "test-saved-figures.db";
+
+    private Context context;
+    private DatabaseHelper db;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(DB);
+        db = new DatabaseHelper(context, DB, false);
+    }
+
+    @After
+    public void tearDown() {
+        db.close();
+        context.deleteDatabase(DB);
+    }
+
+    @Test
+    public void save_sameFigureAndYear_updatesInPlace() {
+        save("1953", "First.");
+        DatabaseHelper.SaveResult result = save("1953", "Second.");
+
+        assertEquals(0, result.inserted);
+        assertEquals(1, result.updated);
+        assertOneFigureWithDetails("Second.");
+    }
+
+    @Test
+    public void save_emptyYearAfterNullYear_updatesInPlace() {
+        save(null, "First.");
+        DatabaseHelper.SaveResult result = save("", "Second.");
+
+        assertEquals(0, result.inserted);
+        assertEquals(1, result.updated);
+        assertOneFigureWithDetails("Second.");
+    }
+
+    @Test
+    public void save_nullYearAfterEmptyYear_updatesInPlace() {
+        save("", "First.");
+        DatabaseHelper.SaveResult result = save(null, "Second.");
+
+        assertEquals(0, result.inserted);
+        assertEquals(1, result.updated);
+        assertOneFigureWithDetails("Second.");
+    }
+
+    @Test
+    public void save_otherYear_insertsAnotherFigure() {
+        save(null, "First.");
+        DatabaseHelper.SaveResult result = save("1953", "Second.");
+
+        assertEquals(1, result.inserted);
+        assertEquals(2, db.getFigureSummaries().size());
+    }
+
+    private DatabaseHelper.SaveResult save(String deathYear, String details) {
+        GroundedResponse response = new GroundedResponse();
+        response.name = "Joseph Stalin";
+        response.details = details;
+        response.sources = Collections.emptyList();
+        return db.saveFigures(Collections.singletonList(new DatabaseHelper.NewFigure(response, deathYear)), null);
+    }
+
+    private void assertOneFigureWithDetails(String details) {
+        List<DatabaseHelper.FigureSummary> figures = db.getFigureSummaries();
+        assertEquals(1, figures.size());
+        assertEquals(details, db.getFigure(figures.get(0).id).details);
+    }
+}
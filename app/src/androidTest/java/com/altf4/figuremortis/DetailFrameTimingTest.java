@@ -0,0 +1,193 @@
+package com.altf4.figuremortis;
+
+import android.app.Activity;
+import android.app.Application;
+import android.content.Context;
+import android.content.Intent;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.SystemClock;
+import android.view.FrameMetrics;
+import android.view.Window;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.test.core.app.ActivityScenario;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that showing a long saved biography does not produce janky frames now that its text is
+ * linkified and measured off the UI thread.
+ * <p>
+ * Frames are recorded from right after {@code onCreate}, before the biography is set, until
+ * shortly after it is on screen. A frame is slow if it takes longer than two refresh intervals of
+ * the display, and the long biography may not produce more slow frames than a one-line one, which
+ * is the baseline for what the screen costs on this device anyway.
+ */
+@RunWith(AndroidJUnit4.class)
+public class DetailFrameTimingTest {
+
+    private static final long TIMEOUT_MS = 10000;
+    private static final long SETTLE_MS = 1000;
+    private static final long POLL_MS = 10;
+
+    @Test
+    public void longBiography_rendersWithoutJank() throws Exception {
+        FrameRecord baseline = showBiography("John III was a pope [1].");
+        FrameRecord longText = showBiography(longBiography());
+
+        assertTrue("No frames observed for the baseline", baseline.frames > 0);
+        assertTrue("No frames observed after the long biography was set", longText.frames > 0);
+        assertTrue("Slow frames (ns): " + longText.slowFrames + ", baseline: " + baseline.slowFrames,
+                longText.slowFrames.size() <= baseline.slowFrames.size());
+    }
+
+    private static final class FrameRecord {
+        final List<Long> slowFrames = new ArrayList<>();
+        int frames;
+        long thresholdNs;
+    }
+
+    /**
+     * Opens the detail screen for a saved biography and records its frames.
+     */
+    private FrameRecord showBiography(String details) throws Exception {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        Application application = (Application) context.getApplicationContext();
+        Intent intent = new Intent(context, DetailActivity.class);
+        intent.putExtra("PERSON_TEXT", "John III");
+        intent.putExtra("PERSON_BIRTH", "Around 530 AD [3]");
+        intent.putExtra("PERSON_DETAILS", details);
+        intent.putExtra("PERSON_SOURCES", sourcesJson());
+
+        FrameRecord record = new FrameRecord();
+        HandlerThread metricsThread = new HandlerThread("frame-metrics");
+        metricsThread.start();
+        Window.OnFrameMetricsAvailableListener listener = (window, frameMetrics, dropCount) -> {
+            // The very first frame includes inflation and is measured by startup benchmarks instead.
+            if (frameMetrics.getMetric(FrameMetrics.FIRST_DRAW_FRAME) == 1) {
+                return;
+            }
+            long total = frameMetrics.getMetric(FrameMetrics.TOTAL_DURATION);
+            synchronized (record) {
+                record.frames++;
+                if (total > record.thresholdNs) {
+                    record.slowFrames.add(total);
+                }
+            }
+        };
+        // Attached right after onCreate: the biography is set later, from a posted callback, so no
+        // frame showing it can be missed.
+        Application.ActivityLifecycleCallbacks attach = new AttachOnCreate(activity -> {
+            float refreshRate = activity.getDisplay() != null ? activity.getDisplay().getRefreshRate() : 60f;
+            synchronized (record) {
+                record.thresholdNs = (long) (2 * 1_000_000_000L / refreshRate);
+            }
+            activity.getWindow().addOnFrameMetricsAvailableListener(listener, new Handler(metricsThread.getLooper()));
+        });
+        application.registerActivityLifecycleCallbacks(attach);
+
+        try (ActivityScenario<DetailActivity> scenario = ActivityScenario.launch(intent)) {
+            long deadline = SystemClock.uptimeMillis() + TIMEOUT_MS;
+            AtomicBoolean shown = new AtomicBoolean();
+            while (!shown.get() && SystemClock.uptimeMillis() < deadline) {
+                scenario.onActivity(activity -> {
+                    TextView tvDetails = activity.findViewById(R.id.tv_details);
+                    shown.set(tvDetails.getText().length() > 0);
+                });
+                Thread.sleep(POLL_MS);
+            }
+            assertTrue("Biography was not shown", shown.get());
+            Thread.sleep(SETTLE_MS);
+            scenario.onActivity(activity -> activity.getWindow().removeOnFrameMetricsAvailableListener(listener));
+        } finally {
+            application.unregisterActivityLifecycleCallbacks(attach);
+            metricsThread.quitSafely();
+        }
+        synchronized (record) {
+            return record;
+        }
+    }
+
+    private interface OnCreated {
+        void onCreated(Activity activity);
+    }
+
+    private static final class AttachOnCreate implements Application.ActivityLifecycleCallbacks {
+        private final OnCreated onCreated;
+
+        AttachOnCreate(OnCreated onCreated) {
+            this.onCreated = onCreated;
+        }
+
+        @Override
+        public void onActivityPostCreated(@NonNull Activity activity, @Nullable Bundle savedInstanceState) {
+            if (activity instanceof DetailActivity) {
+                onCreated.onCreated(activity);
+            }
+        }
+
+        @Override
+        public void onActivityCreated(@NonNull Activity activity, @Nullable Bundle savedInstanceState) {
+        }
+
+        @Override
+        public void onActivityStarted(@NonNull Activity activity) {
+        }
+
+        @Override
+        public void onActivityResumed(@NonNull Activity activity) {
+        }
+
+        @Override
+        public void onActivityPaused(@NonNull Activity activity) {
+        }
+
+        @Override
+        public void onActivityStopped(@NonNull Activity activity) {
+        }
+
+        @Override
+        public void onActivitySaveInstanceState(@NonNull Activity activity, @NonNull Bundle outState) {
+        }
+
+        @Override
+        public void onActivityDestroyed(@NonNull Activity activity) {
+        }
+    }
+
+    private static String longBiography() {
+        String paragraph = "John III, born Catelinus in Rome, was the Pope of the Catholic Church from July 17, 561, "
+                + "to his death on July 13, 574 [1, 3, 5]. Born to a distinguished family, his father, Anastasius, "
+                + "held the title of illustris [1, 3]. His papacy occurred during the Lombard invasion of Italy, "
+                + "a period of significant upheaval, resulting in the destruction of many records [1, 2, 3]. ";
+        StringBuilder details = new StringBuilder();
+        for (int i = 0; i < 12; i++) {
+            details.append(paragraph).append(paragraph).append("\n\n");
+        }
+        return details.toString();
+    }
+
+    private static String sourcesJson() {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 1; i <= 5; i++) {
+            if (i > 1) {
+                json.append(',');
+            }
+            json.append("{\"").append(i).append("\":\"https://example.com/source").append(i).append("\"}");
+        }
+        return json.append(']').toString();
+    }
+}
@@ -0,0 +1,363 @@
+package com.altf4.figuremortis;
+
+import android.content.res.AssetManager;
+
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.altf4.figuremortis.service.ApiEndpoints;
+import com.altf4.figuremortis.service.GeminiPayloads;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+/**
+ * A local stand-in for history.muffinlabs.com and the Gemini API. It replays the payloads recorded
+ * under {@code assets/recorded/} and can add latency, bandwidth throttling, 429 responses and
+ * chunked bodies to mimic real network conditions. A multi-figure prompt is answered with one copy
+ * of the recorded biography per listed figure, renamed and keyed like a real answer; the copies
+ * can be reordered or one left out to mimic a model that does not follow the prompt.
+ * <p>
+ * It also plays the asynchronous Batch API: {@code :batchGenerateContent} creates a job, and
+ * polling {@code batches/{id}} reports it pending a configurable number of times before returning
+ * one keyed, renamed copy of the recorded biography per inlined request.
+ */
+public class FakeApiServer {
+
+    private static final String HISTORY_PAYLOAD = "recorded/history_date.json";
+    private static final String GEMINI_PAYLOAD = "recorded/gemini_generate_content.json";
+    // A numbered figure in a multi-figure prompt, e.g. "2. Pope John III that was deceased in 574".
+    private static final Pattern BATCH_LINE = Pattern.compile("(?m)^(\\d+)\\. (.+?)(?: that was deceased in .*)?$");
+    // The figure in a single-figure query, e.g. "Ada Lovelace" in "Ada Lovelace that was deceased in 1852".
+    private static final Pattern QUERY_NAME = Pattern.compile("^(.+?)(?: that was deceased in .*)?$");
+    private static final String JOB_PREFIX = "batches/fake-";
+
+    private final MockWebServer server = new MockWebServer();
+    private final AtomicInteger requestCount = new AtomicInteger();
+    private final AtomicInteger jobCount = new AtomicInteger();
+    // Submitted Batch API jobs by name, with their inlined requests and how often they were polled.
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    private final String historyBody;
+    private final String geminiBody;
+    private volatile Conditions conditions = Conditions.ideal();
+
+    /**
+     * Network conditions applied to every response.
+     */
+    public static final class Conditions {
+        long latencyMs;
+        long bytesPerSecond;
+        int rateLimitEvery;
+        int chunkSize;
+        boolean reverseBatch;
+        int dropFromBatch;
+        int pendingPolls = 1;
+
+        public static Conditions ideal() {
+            return new Conditions();
+        }
+
+        /** Delays the response headers by this much. */
+        public Conditions latency(long ms) {
+            latencyMs = ms;
+            return this;
+        }
+
+        /** Limits the body transfer rate. */
+        public Conditions throttle(long bytesPerSecond) {
+            this.bytesPerSecond = bytesPerSecond;
+            return this;
+        }
+
+        /** Answers every n-th request with 429 Too Many Requests; 1 rejects every request. */
+        public Conditions rateLimitEvery(int n) {
+            rateLimitEvery = n;
+            return this;
+        }
+
+        /** Sends the body with chunked transfer encoding in chunks of at most this many bytes. */
+        public Conditions chunked(int chunkSize) {
+            this.chunkSize = chunkSize;
+            return this;
+        }
+
+        /** Answers multi-figure prompts in the reverse of the listed order. */
+        public Conditions reverseBatch() {
+            reverseBatch = true;
+            return this;
+        }
+
+        /**
+         * Leaves the figure with this list number out of multi-figure answers; for a Batch API
+         * job, the inlined request with key number - 1.
+         */
+        public Conditions dropFromBatch(int number) {
+            dropFromBatch = number;
+            return this;
+        }
+
+        /** Reports a Batch API job as running for this many polls before it succeeds. */
+        public Conditions pendingPolls(int polls) {
+            pendingPolls = polls;
+            return this;
+        }
+    }
+
+    private static final class Job {
+        final JsonArray requests;
+        final AtomicInteger polls = new AtomicInteger();
+
+        Job(JsonArray requests) {
+            this.requests = requests;
+        }
+    }
+
+    public FakeApiServer() throws IOException {
+        AssetManager assets = InstrumentationRegistry.getInstrumentation().getContext().getAssets();
+        historyBody = read(assets, HISTORY_PAYLOAD);
+        geminiBody = read(assets, GEMINI_PAYLOAD);
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                return respond(request);
+            }
+        });
+    }
+
+    /**
+     * Starts the server and points the app's endpoints at it.
+     */
+    public void start() throws IOException {
+        server.start();
+        ApiEndpoints.override(server.url("/").toString(), server.url("/v1beta/").toString());
+    }
+
+    /**
+     * Stops the server and restores the real endpoints.
+     */
+    public void shutdown() throws IOException {
+        ApiEndpoints.reset();
+        server.shutdown();
+    }
+
+    public void setConditions(Conditions conditions) {
+        this.conditions = conditions;
+    }
+
+    public int getRequestCount() {
+        return requestCount.get();
+    }
+
+    private MockResponse respond(RecordedRequest request) {
+        Conditions c = conditions;
+        int n = requestCount.incrementAndGet();
+        String path = request.getPath();
+
+        MockResponse response = new MockResponse();
+        if (c.latencyMs > 0) {
+            response.setHeadersDelay(c.latencyMs, TimeUnit.MILLISECONDS);
+        }
+        if (c.rateLimitEvery > 0 && n % c.rateLimitEvery == 0) {
+            return response.setResponseCode(429)
+                    .addHeader("Retry-After", "1")
+                    .setBody("{\"error\":{\"code\":429,\"status\":\"RESOURCE_EXHAUSTED\"}}");
+        }
+
+        String body;
+        if (path.startsWith("/date/")) {
+            body = historyBody;
+        } else if (path.startsWith("/v1beta/models/") && path.contains(":generateContent")) {
+            String prompt = userPrompt(request.getBody().clone().readUtf8());
+            body = prompt != null && BATCH_LINE.matcher(prompt).find() ? batchBody(prompt, c) : geminiBody;
+        } else if (path.startsWith("/v1beta/models/") && path.contains(":batchGenerateContent")) {
+            body = submitJob(request.getBody().clone().readUtf8());
+            if (body == null) {
+                return response.setResponseCode(400);
+            }
+        } else if (path.startsWith("/v1beta/" + JOB_PREFIX)) {
+            String name = path.substring("/v1beta/".length()).split("\\?")[0];
+            Job job = jobs.get(name);
+            if (job == null) {
+                return response.setResponseCode(404);
+            }
+            body = pollJob(name, job, c);
+        } else {
+            return response.setResponseCode(404);
+        }
+
+        response.addHeader("Content-Type", "application/json; charset=utf-8");
+        if (c.chunkSize > 0) {
+            response.setChunkedBody(body, c.chunkSize);
+        } else {
+            response.setBody(body);
+        }
+        if (c.bytesPerSecond > 0) {
+            // Release the budget in 100 ms slices so the transfer is smooth rather than bursty.
+            response.throttleBody(Math.max(1, c.bytesPerSecond / 10), 100, TimeUnit.MILLISECONDS);
+        }
+        return response;
+    }
+
+    /**
+     * @return The text of the last user turn in a generateContent request, or null.
+     */
+    private static String userPrompt(String requestBody) {
+        try {
+            JsonArray contents = new JsonParser().parse(requestBody).getAsJsonObject().getAsJsonArray("contents");
+            return contents.get(contents.size() - 1).getAsJsonObject()
+                    .getAsJsonArray("parts").get(0).getAsJsonObject().get("text").getAsString();
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Records a Batch API job.
+     *
+     * @return The long-running operation naming the job, or null if the request has no inlined
+     * requests.
+     */
+    private String submitJob(String requestBody) {
+        JsonArray requests;
+        try {
+            requests = new JsonParser().parse(requestBody).getAsJsonObject()
+                    .getAsJsonObject("batch").getAsJsonObject("input_config")
+                    .getAsJsonObject("requests").getAsJsonArray("requests");
+        } catch (RuntimeException e) {
+            return null;
+        }
+        if (requests == null) {
+            return null;
+        }
+        String name = JOB_PREFIX + jobCount.incrementAndGet();
+        jobs.put(name, new Job(requests));
+        return operation(name, "BATCH_STATE_PENDING", null).toString();
+    }
+
+    private String pollJob(String name, Job job, Conditions c) {
+        if (job.polls.incrementAndGet() <= c.pendingPolls) {
+            return operation(name, "BATCH_STATE_RUNNING", null).toString();
+        }
+        JsonArray answers = new JsonArray();
+        for (int i = 0; i < job.requests.size(); i++) {
+            JsonObject inlined = job.requests.get(i).getAsJsonObject();
+            JsonObject metadata = inlined.getAsJsonObject("metadata");
+            String key = metadata.get(GeminiPayloads.BATCH_KEY).getAsString();
+            if (Integer.parseInt(key) + 1 == c.dropFromBatch) {
+                continue;
+            }
+            String query = userPrompt(inlined.getAsJsonObject("request").toString());
+            Matcher figure = QUERY_NAME.matcher(query != null ? query : "");
+            JsonObject answer = recordedAnswer();
+            if (figure.matches()) {
+                answer.addProperty("name", figure.group(1));
+            }
+            JsonObject entry = new JsonObject();
+            entry.add("response", new JsonParser().parse(candidateBody("```json\n" + answer + "\n```")));
+            entry.add("metadata", metadata.deepCopy());
+            if (c.reverseBatch) {
+                JsonArray reversed = new JsonArray();
+                reversed.add(entry);
+                reversed.addAll(answers);
+                answers = reversed;
+            } else {
+                answers.add(entry);
+            }
+        }
+        JsonObject inlinedResponses = new JsonObject();
+        inlinedResponses.add("inlinedResponses", answers);
+        JsonObject result = new JsonObject();
+        result.add("inlinedResponses", inlinedResponses);
+        return operation(name, "BATCH_STATE_SUCCEEDED", result).toString();
+    }
+
+    private static JsonObject operation(String name, String state, JsonObject result) {
+        JsonObject metadata = new JsonObject();
+        metadata.addProperty("state", state);
+        JsonObject operation = new JsonObject();
+        operation.addProperty("name", name);
+        operation.add("metadata", metadata);
+        operation.addProperty("done", result != null);
+        if (result != null) {
+            operation.add("response", result);
+        }
+        return operation;
+    }
+
+    private JsonObject recordedAnswer() {
+        return new JsonParser().parse(
+                GeminiPayloads.stripCodeFence(GeminiPayloads.extractText(geminiBody))).getAsJsonObject();
+    }
+
+    private String batchBody(String prompt, Conditions c) {
+        JsonObject recorded = recordedAnswer();
+        JsonArray answers = new JsonArray();
+        Matcher line = BATCH_LINE.matcher(prompt);
+        while (line.find()) {
+            int number = Integer.parseInt(line.group(1));
+            if (number == c.dropFromBatch) {
+                continue;
+            }
+            JsonObject answer = recorded.deepCopy();
+            answer.addProperty(GeminiPayloads.BATCH_KEY, String.valueOf(number));
+            answer.addProperty("name", line.group(2));
+            if (c.reverseBatch) {
+                JsonArray reversed = new JsonArray();
+                reversed.add(answer);
+                reversed.addAll(answers);
+                answers = reversed;
+            } else {
+                answers.add(answer);
+            }
+        }
+
+        return candidateBody("```json\n" + answers + "\n```");
+    }
+
+    /**
+     * @return A generateContent response whose only candidate says {@code text}.
+     */
+    private static String candidateBody(String text) {
+        JsonObject part = new JsonObject();
+        part.addProperty("text", text);
+        JsonArray parts = new JsonArray();
+        parts.add(part);
+        JsonObject content = new JsonObject();
+        content.add("parts", parts);
+        content.addProperty("role", "model");
+        JsonObject candidate = new JsonObject();
+        candidate.add("content", content);
+        JsonArray candidates = new JsonArray();
+        candidates.add(candidate);
+        JsonObject response = new JsonObject();
+        response.add("candidates", candidates);
+        return response.toString();
+    }
+
+    static String read(AssetManager assets, String name) throws IOException {
+        try (InputStream in = assets.open(name)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.altf4.figuremortis;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.altf4.figuremortis.service.ApiEndpoints;
+import com.altf4.figuremortis.service.GeminiService;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * Submits a job to the asynchronous Batch API on {@link FakeApiServer}, polls it until it is done
+ * and checks that every inlined answer is paired with the figure it was submitted for.
+ */
+@RunWith(AndroidJUnit4.class)
+public class GeminiBatchJobTest {
+
+    private static final long TIMEOUT_S = 15;
+    private static final int MAX_POLLS = 10;
+    private static final List<String> QUERIES = Arrays.asList(
+            "Pope John III that was deceased in 574",
+            "Ivan the Terrible that was deceased in 1584",
+            "Ada Lovelace that was deceased in 1852");
+
+    private FakeApiServer server;
+    private GeminiService service;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new FakeApiServer();
+        server.start();
+        service = new GeminiService("test", ApiEndpoints.geminiApiRoot());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void job_submitPollAndParse() throws Exception {
+        server.setConditions(FakeApiServer.Conditions.ideal().pendingPolls(2));
+        AtomicInteger pending = new AtomicInteger();
+        List<GeminiService.BatchResult> results = run(pending);
+
+        assertEquals(2, pending.get());
+        assertNamesMatchQueries(results);
+    }
+
+    @Test
+    public void job_reordered_matchesByKey() throws Exception {
+        server.setConditions(FakeApiServer.Conditions.ideal().reverseBatch());
+        assertNamesMatchQueries(run(new AtomicInteger()));
+    }
+
+    @Test
+    public void job_missingEntry_failsOnlyThatFigure() throws Exception {
+        server.setConditions(FakeApiServer.Conditions.ideal().reverseBatch().dropFromBatch(2));
+        List<GeminiService.BatchResult> results = run(new AtomicInteger());
+
+        assertEquals(QUERIES.size(), results.size());
+        assertEquals("Pope John III", results.get(0).response.name);
+        assertFalse(results.get(1).isSuccessful());
+        assertEquals("Ada Lovelace", results.get(2).response.name);
+    }
+
+    /**
+     * Submits the job, then polls until it finishes.
+     *
+     * @param pending Counts the polls that found the job still running.
+     */
+    private List<GeminiService.BatchResult> run(AtomicInteger pending) throws Exception {
+        CountDownLatch submitted = new CountDownLatch(1);
+        AtomicReference<String> jobName = new AtomicReference<>();
+        AtomicReference<Exception> error = new AtomicReference<>();
+        service.submitBatchJob(QUERIES, "test-job", new GeminiService.BatchJobCallback() {
+            @Override
+            public void onSubmitted(String name) {
+                jobName.set(name);
+                submitted.countDown();
+            }
+
+            @Override
+            public void onPending(String state) {
+                error.set(new IllegalStateException("Submission reported pending"));
+                submitted.countDown();
+            }
+
+            @Override
+            public void onComplete(List<GeminiService.BatchResult> results) {
+                error.set(new IllegalStateException("Submission reported results"));
+                submitted.countDown();
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                error.set(e);
+                submitted.countDown();
+            }
+        });
+        assertTrue("Submission timed out", submitted.await(TIMEOUT_S, TimeUnit.SECONDS));
+        assertNull(error.get());
+        assertNotNull(jobName.get());
+
+        for (int poll = 0; poll < MAX_POLLS; poll++) {
+            CountDownLatch polled = new CountDownLatch(1);
+            AtomicReference<List<GeminiService.BatchResult>> results = new AtomicReference<>();
+            service.fetchBatchJob(jobName.get(), QUERIES, new GeminiService.BatchJobCallback() {
+                @Override
+                public void onSubmitted(String name) {
+                    error.set(new IllegalStateException("Poll reported a new job"));
+                    polled.countDown();
+                }
+
+                @Override
+                public void onPending(String state) {
+                    pending.incrementAndGet();
+                    polled.countDown();
+                }
+
+                @Override
+                public void onComplete(List<GeminiService.BatchResult> batchResults) {
+                    results.set(batchResults);
+                    polled.countDown();
+                }
+
+                @Override
+                public void onFailure(Exception e) {
+                    error.set(e);
+                    polled.countDown();
+                }
+            });
+            assertTrue("Poll timed out", polled.await(TIMEOUT_S, TimeUnit.SECONDS));
+            assertNull(error.get());
+            if (results.get() != null) {
+                return results.get();
+            }
+        }
+        fail("Job still pending after " + MAX_POLLS + " polls");
+        return null;
+    }
+
+    private static void assertNamesMatchQueries(List<GeminiService.BatchResult> results) {
+        assertEquals(QUERIES.size(), results.size());
+        for (int i = 0; i < QUERIES.size(); i++) {
+            GeminiService.BatchResult result = results.get(i);
+            assertEquals(QUERIES.get(i), result.query);
+            assertTrue(result.isSuccessful());
+            assertTrue(QUERIES.get(i).startsWith(result.response.name + " that was deceased in"));
+        }
+    }
+}
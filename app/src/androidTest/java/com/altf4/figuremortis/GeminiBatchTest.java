@@ -0,0 +1,128 @@
+package com.altf4.figuremortis;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.altf4.figuremortis.service.ApiEndpoints;
+import com.altf4.figuremortis.service.GeminiService;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import okhttp3.Call;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that a multi-figure request pairs every answer with the figure it was asked for, against
+ * {@link FakeApiServer} answering in order, out of order, or with a figure left out.
+ */
+@RunWith(AndroidJUnit4.class)
+public class GeminiBatchTest {
+
+    private static final long TIMEOUT_S = 15;
+    private static final List<String> QUERIES = Arrays.asList(
+            "Pope John III that was deceased in 574",
+            "Ivan the Terrible that was deceased in 1584",
+            "Ada Lovelace that was deceased in 1852");
+
+    private FakeApiServer server;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new FakeApiServer();
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void batch_inOrder_matchesEveryFigure() throws Exception {
+        List<GeminiService.BatchResult> results = generate(FakeApiServer.Conditions.ideal());
+        assertNamesMatchQueries(results);
+    }
+
+    @Test
+    public void batch_reordered_matchesByKey() throws Exception {
+        List<GeminiService.BatchResult> results = generate(FakeApiServer.Conditions.ideal().reverseBatch());
+        assertNamesMatchQueries(results);
+    }
+
+    @Test
+    public void batch_missingEntry_failsOnlyThatFigure() throws Exception {
+        List<GeminiService.BatchResult> results = generate(FakeApiServer.Conditions.ideal().reverseBatch().dropFromBatch(2));
+        assertEquals(QUERIES.size(), results.size());
+        assertTrue(results.get(0).isSuccessful());
+        assertFalse(results.get(1).isSuccessful());
+        assertTrue(results.get(2).isSuccessful());
+        assertEquals("Pope John III", results.get(0).response.name);
+        assertEquals("Ada Lovelace", results.get(2).response.name);
+    }
+
+    @Test
+    public void batch_canceled_reportsFailure() throws Exception {
+        server.setConditions(FakeApiServer.Conditions.ideal().latency(500));
+        CountDownLatch done = new CountDownLatch(1);
+        AtomicReference<Exception> error = new AtomicReference<>();
+        Call call = new GeminiService("test", ApiEndpoints.geminiApiRoot())
+                .generateGroundedResponses(QUERIES, new GeminiService.BatchCallback() {
+                    @Override
+                    public void onComplete(List<GeminiService.BatchResult> results) {
+                        done.countDown();
+                    }
+
+                    @Override
+                    public void onFailure(Exception e) {
+                        error.set(e);
+                        done.countDown();
+                    }
+                });
+        call.cancel();
+        assertTrue(done.await(TIMEOUT_S, TimeUnit.SECONDS));
+        assertNotNull("A canceled batch must not report results", error.get());
+    }
+
+    private List<GeminiService.BatchResult> generate(FakeApiServer.Conditions conditions) throws Exception {
+        server.setConditions(conditions);
+        CountDownLatch done = new CountDownLatch(1);
+        AtomicReference<List<GeminiService.BatchResult>> results = new AtomicReference<>();
+        AtomicReference<Exception> error = new AtomicReference<>();
+        new GeminiService("test", ApiEndpoints.geminiApiRoot())
+                .generateGroundedResponses(QUERIES, new GeminiService.BatchCallback() {
+                    @Override
+                    public void onComplete(List<GeminiService.BatchResult> batchResults) {
+                        results.set(batchResults);
+                        done.countDown();
+                    }
+
+                    @Override
+                    public void onFailure(Exception e) {
+                        error.set(e);
+                        done.countDown();
+                    }
+                });
+        assertTrue("Batch timed out", done.await(TIMEOUT_S, TimeUnit.SECONDS));
+        assertNull(error.get());
+        return results.get();
+    }
+
+    private static void assertNamesMatchQueries(List<GeminiService.BatchResult> results) {
+        assertEquals(QUERIES.size(), results.size());
+        for (int i = 0; i < QUERIES.size(); i++) {
+            GeminiService.BatchResult result = results.get(i);
+            assertEquals(QUERIES.get(i), result.query);
+            assertTrue(result.isSuccessful());
+            assertTrue(QUERIES.get(i).startsWith(result.response.name + " that was deceased in"));
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.altf4.figuremortis;
+
+import android.content.Context;
+import android.content.Intent;
+import android.os.SystemClock;
+import android.view.View;
+import android.widget.TextView;
+
+import androidx.recyclerview.widget.RecyclerView;
+import androidx.test.core.app.ActivityScenario;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.function.Predicate;
+
+import static org.junit.Assert.*;
+
+/**
+ * Measures time-to-first-content of the day list and the detail screen against {@link FakeApiServer}
+ * under several network conditions. Each scenario has a budget on top of the injected latency; a
+ * run that exceeds it is treated as a regression.
+ */
+@RunWith(AndroidJUnit4.class)
+public class TimeToContentTest {
+
+    // App-side budget (inflation, parsing, layout) on top of the simulated network time.
+    private static final long LIST_BUDGET_MS = 1500;
+    private static final long DETAIL_BUDGET_MS = 2000;
+    private static final long TIMEOUT_MS = 15000;
+    private static final long POLL_MS = 10;
+
+    private FakeApiServer server;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new FakeApiServer();
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void list_idealNetwork() {
+        server.setConditions(FakeApiServer.Conditions.ideal());
+        assertWithinBudget("list/ideal", measureList(), LIST_BUDGET_MS);
+    }
+
+    @Test
+    public void list_slowAndThrottled() {
+        server.setConditions(FakeApiServer.Conditions.ideal().latency(400).throttle(16 * 1024));
+        // The recorded payload is ~6 KB, so throttling adds well under half a second.
+        assertWithinBudget("list/slow", measureList(), 400 + 500 + LIST_BUDGET_MS);
+    }
+
+    @Test
+    public void detail_idealNetwork() {
+        server.setConditions(FakeApiServer.Conditions.ideal());
+        assertWithinBudget("detail/ideal", measureDetail(), DETAIL_BUDGET_MS);
+    }
+
+    @Test
+    public void detail_chunkedStream() {
+        server.setConditions(FakeApiServer.Conditions.ideal().latency(300).chunked(256));
+        assertWithinBudget("detail/chunked", measureDetail(), 300 + DETAIL_BUDGET_MS);
+    }
+
+    @Test
+    public void detail_rateLimited_failsFast() {
+        server.setConditions(FakeApiServer.Conditions.ideal().rateLimitEvery(1));
+        long elapsed = measure(detailIntent(), DetailActivity.class, activity ->
+                activity.findViewById(R.id.progress_bar_detail).getVisibility() == View.GONE);
+        assertWithinBudget("detail/429", elapsed, DETAIL_BUDGET_MS);
+    }
+
+    private long measureList() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        return measure(new Intent(context, MainActivity.class), MainActivity.class, activity -> {
+            RecyclerView list = activity.findViewById(R.id.recyclerView);
+            return list.getChildCount() > 0;
+        });
+    }
+
+    private long measureDetail() {
+        return measure(detailIntent(), DetailActivity.class, activity -> {
+            TextView details = activity.findViewById(R.id.tv_details);
+            return details.getText().length() > 0;
+        });
+    }
+
+    private Intent detailIntent() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        Intent intent = new Intent(context, DetailActivity.class);
+        intent.putExtra("PERSON_TEXT", "Pope John III (b. 520)");
+        intent.putExtra("PERSON_YEAR", "574");
+        return intent;
+    }
+
+    /**
+     * Launches the activity and returns the milliseconds until {@code hasContent} holds.
+     */
+    private <A extends android.app.Activity> long measure(Intent intent, Class<A> type, Predicate<A> hasContent) {
+        long start = SystemClock.elapsedRealtime();
+        try (ActivityScenario<A> scenario = ActivityScenario.launch(intent)) {
+            boolean[] done = new boolean[1];
+            while (SystemClock.elapsedRealtime() - start < TIMEOUT_MS) {
+                scenario.onActivity(activity -> done[0] = hasContent.test(activity));
+                if (done[0]) {
+                    return SystemClock.elapsedRealtime() - start;
+                }
+                SystemClock.sleep(POLL_MS);
+            }
+        }
+        fail(type.getSimpleName() + " showed no content within " + TIMEOUT_MS + " ms");
+        return TIMEOUT_MS;
+    }
+
+    private static void assertWithinBudget(String scenario, long elapsedMs, long budgetMs) {
+        android.util.Log.i("TimeToContent", scenario + ": " + elapsedMs + " ms (budget " + budgetMs + " ms)");
+        assertTrue(scenario + " took " + elapsedMs + " ms, budget is " + budgetMs + " ms", elapsedMs <= budgetMs);
+    }
+}
@@ -1,30 +1,42 @@
 package com.altf4.figuremortis;
 
+import android.content.Context;
 import android.os.Bundle;
+import android.text.Layout;
+import android.text.method.LinkMovementMethod;
 import android.view.View;
 import android.widget.Button;
 import android.widget.ImageButton;
 import android.widget.ProgressBar;
+import android.widget.ScrollView;
 import android.widget.TextView;
 import android.widget.Toast;
 
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.core.text.PrecomputedTextCompat;
+import androidx.core.widget.TextViewCompat;
 
 import com.altf4.figuremortis.db.DatabaseHelper;
+import com.altf4.figuremortis.db.SourcesCodec;
+import com.altf4.figuremortis.exec.AppExecutors;
+import com.altf4.figuremortis.exec.Priority;
+import com.altf4.figuremortis.exec.TaskScope;
 import com.altf4.figuremortis.service.GeminiService;
-import com.altf4.figuremortis.service.GeminiService.GroundedResponse;
-import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
+import com.altf4.figuremortis.service.GroundedResponse;
+import com.altf4.figuremortis.text.BiographyRenderer;
 
 import java.util.List;
 import java.util.Map;
 
-public class DetailActivity extends AppCompatActivity {
+public class DetailActivity extends AppCompatActivity implements BiographyRenderer.OnCitationClickListener {
 
     private TextView tvName, tvBirth, tvDetails, tvSources, tvTitleSelected;
+    private ScrollView scrollView;
     private ProgressBar progressBar;
     private ImageButton btnSave;
     private GeminiService geminiService;
+    private TaskScope taskScope;
+    private BiographyRenderer.Rendered rendered;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -36,9 +48,12 @@ public class DetailActivity extends AppCompatActivity {
         tvBirth = findViewById(R.id.tv_birth);
         tvDetails = findViewById(R.id.tv_details);
         tvSources = findViewById(R.id.tv_sources);
+        scrollView = findViewById(R.id.scroll_detail);
         progressBar = findViewById(R.id.progress_bar_detail);
         btnSave = findViewById(R.id.btn_save);
+        tvDetails.setMovementMethod(LinkMovementMethod.getInstance());
 
+        taskScope = TaskScope.of(this);
         geminiService = new GeminiService(BuildConfig.GEMINI_API_KEY);
 
         String personText = getIntent().getStringExtra("PERSON_TEXT");
@@ -46,27 +61,39 @@ public class DetailActivity extends AppCompatActivity {
         String personBirth = getIntent().getStringExtra("PERSON_BIRTH");
         String personDetails = getIntent().getStringExtra("PERSON_DETAILS");
         String personSources = getIntent().getStringExtra("PERSON_SOURCES");
+        int personId = getIntent().getIntExtra("PERSON_ID", -1);
 
-        if (personDetails != null) {
-            // Data is pre-fetched from SavedActivity
+        if (personId != -1) {
+            // Opened from SavedActivity; the biography is only read, and decompressed, now.
             tvTitleSelected.setText("Ah... you just selected...");
+            btnSave.setEnabled(false);
             tvName.setText(personText);
-            tvBirth.setText("Born: " + personBirth);
-            tvDetails.setText(personDetails);
-
-            StringBuilder sourcesText = new StringBuilder("Sources:\n");
-            if (personSources != null && !personSources.isEmpty()) {
-                List<Map<String, String>> sources = new Gson().fromJson(personSources, new TypeToken<List<Map<String, String>>>(){}.getType());
-                for (Map<String, String> sourceMap : sources) {
-                    for (Map.Entry<String, String> entry : sourceMap.entrySet()) {
-                        sourcesText.append(entry.getKey()).append(". ").append(entry.getValue()).append("\n");
-                    }
-                }
+            loadSavedBiography(personId);
+
+        } else if (personDetails != null) {
+            // The widget's daily snapshot prefetches a few biographies; unlike saved ones they can be saved.
+            boolean prefetched = getIntent().getBooleanExtra("PERSON_PREFETCHED", false);
+            if (!prefetched) {
+                // Data is pre-fetched from SavedActivity
+                tvTitleSelected.setText("Ah... you just selected...");
             }
-            tvSources.setText(sourcesText.toString());
-
             btnSave.setEnabled(false); // Already saved or no need to save again
-            progressBar.setVisibility(View.GONE);
+
+            // Parse the sources off the UI thread, then render like a freshly fetched biography.
+            taskScope.execute(Priority.INTERACTIVE, () -> {
+                List<Map<String, String>> sources = SourcesCodec.fromJson(personSources);
+                taskScope.postToMain(() -> {
+                    showBiography(personText, personBirth, personDetails, sources);
+                    if (prefetched) {
+                        GroundedResponse response = new GroundedResponse();
+                        response.name = personText;
+                        response.birth = personBirth;
+                        response.details = personDetails;
+                        response.sources = sources;
+                        enableSave(response);
+                    }
+                });
+            });
 
         } else if (personText != null && personYear != null) {
             // Fetch data from GeminiService
@@ -78,46 +105,110 @@ public class DetailActivity extends AppCompatActivity {
         }
     }
 
+    private void loadSavedBiography(int id) {
+        progressBar.setVisibility(View.VISIBLE);
+        Context appContext = getApplicationContext();
+        taskScope.execute(Priority.INTERACTIVE, () -> {
+            GroundedResponse response;
+            try (DatabaseHelper db = new DatabaseHelper(appContext)) {
+                response = db.getFigure(id);
+            }
+            taskScope.postToMain(() -> {
+                if (response == null) {
+                    progressBar.setVisibility(View.GONE);
+                    Toast.makeText(this, "Error: This figure is no longer saved.", Toast.LENGTH_SHORT).show();
+                    return;
+                }
+                showBiography(response.name, response.birth, response.details, response.sources);
+            });
+        });
+    }
+
     private void fetchBiography(String prompt) {
         progressBar.setVisibility(View.VISIBLE);
-        geminiService.generateGroundedResponse(prompt, new GeminiService.GeminiCallback() {
+        taskScope.track(geminiService.generateGroundedResponse(prompt, new GeminiService.GeminiCallback() {
 
             @Override
-            public void onComplete(GeminiService.GroundedResponse response) {
-                runOnUiThread(() -> {
-                    progressBar.setVisibility(View.GONE);
-                    tvName.setText(response.name);
-                    tvBirth.setText("Born: " + response.birth);
-                    tvDetails.setText(response.details);
-
-                    StringBuilder sourcesText = new StringBuilder("Sources:\n");
-                    if (response.sources != null) {
-                        for (Map<String, String> sourceMap : response.sources) {
-                            for (Map.Entry<String, String> entry : sourceMap.entrySet()) {
-                                sourcesText.append(entry.getKey()).append(". ").append(entry.getValue()).append("\n");
-                            }
-                        }
-                    }
-                    tvSources.setText(sourcesText.toString());
+            public void onComplete(GroundedResponse response) {
+                taskScope.postToMain(() -> {
+                    showBiography(response.name, response.birth, response.details, response.sources);
 
-                    btnSave.setEnabled(true);
-
-                    btnSave.setOnClickListener(v -> {
-                        DatabaseHelper db = new DatabaseHelper(DetailActivity.this);
-                        String personYear = getIntent().getStringExtra("PERSON_YEAR");
-                        db.addFigure(response, personYear);
-                        Toast.makeText(DetailActivity.this, "Figure saved", Toast.LENGTH_SHORT).show();
-                    });
+                    enableSave(response);
                 });
             }
 
             @Override
             public void onFailure(Exception e) {
-                runOnUiThread(() -> {
+                taskScope.postToMain(() -> {
                     progressBar.setVisibility(View.GONE);
                     Toast.makeText(DetailActivity.this, "Failed to load biography: " + e.getMessage(), Toast.LENGTH_LONG).show();
                 });
             }
+        }));
+    }
+
+    private void enableSave(GroundedResponse response) {
+        btnSave.setEnabled(true);
+
+        btnSave.setOnClickListener(v -> {
+            Context appContext = getApplicationContext();
+            String personYear = getIntent().getStringExtra("PERSON_YEAR");
+            // Not tied to the scope: a save the user asked for must finish even if they leave.
+            AppExecutors.get().execute(Priority.INTERACTIVE, () -> {
+                try (DatabaseHelper db = new DatabaseHelper(appContext)) {
+                    db.addFigure(response, personYear);
+                }
+                taskScope.postToMain(() ->
+                        Toast.makeText(DetailActivity.this, "Figure saved", Toast.LENGTH_SHORT).show());
+            });
+        });
+    }
+
+    /**
+     * Shows the name and birth date right away, then builds citation links and measures the long
+     * texts on a background thread so setting them does not stall a frame.
+     */
+    private void showBiography(String name, String birth, String details, List<Map<String, String>> sources) {
+        tvName.setText(name);
+        tvBirth.setText("Born: " + birth);
+
+        // Text metrics must be read on the UI thread; the layout work itself happens off it.
+        PrecomputedTextCompat.Params detailsParams = TextViewCompat.getTextMetricsParams(tvDetails);
+        PrecomputedTextCompat.Params sourcesParams = TextViewCompat.getTextMetricsParams(tvSources);
+        String key = name != null ? name : "";
+        String bodyText = details != null ? details : "";
+        taskScope.execute(Priority.INTERACTIVE, () -> {
+            BiographyRenderer.Rendered result = BiographyRenderer.get()
+                    .render(key, bodyText, sources, detailsParams, sourcesParams);
+            taskScope.postToMain(() -> {
+                rendered = result;
+                setPrecomputedText(tvDetails, result.details);
+                setPrecomputedText(tvSources, result.sources);
+                progressBar.setVisibility(View.GONE);
+            });
         });
     }
+
+    private static void setPrecomputedText(TextView textView, PrecomputedTextCompat text) {
+        try {
+            TextViewCompat.setPrecomputedText(textView, text);
+        } catch (IllegalArgumentException e) {
+            // The view's metrics changed since the params were read; fall back to a normal layout.
+            textView.setText(text);
+        }
+    }
+
+    @Override
+    public void onCitationClick(String sourceNumber) {
+        Layout layout = tvSources.getLayout();
+        if (rendered == null || layout == null) {
+            return;
+        }
+        int offset = rendered.offsetOfSource(sourceNumber);
+        if (offset < 0) {
+            return;
+        }
+        int y = tvSources.getTop() + layout.getLineTop(layout.getLineForOffset(offset));
+        scrollView.smoothScrollTo(0, y);
+    }
 }
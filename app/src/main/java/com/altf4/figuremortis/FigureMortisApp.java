@@ -0,0 +1,42 @@
+package com.altf4.figuremortis;
+
+import android.app.Application;
+
+import com.altf4.figuremortis.db.DatabaseHelper;
+import com.altf4.figuremortis.exec.AppExecutors;
+import com.altf4.figuremortis.exec.Priority;
+import com.altf4.figuremortis.memory.MemoryGovernor;
+import com.altf4.figuremortis.telemetry.Telemetry;
+import com.altf4.figuremortis.telemetry.TelemetryOverlay;
+import com.altf4.figuremortis.work.BiographyRefreshWorker;
+
+public class FigureMortisApp extends Application {
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+
+        MemoryGovernor.get().install(this);
+        // Scheduling touches WorkManager's database; keep it off the startup path.
+        AppExecutors.get().execute(Priority.MAINTENANCE,
+                () -> BiographyRefreshWorker.schedule(this, BiographyRefreshWorker.DEFAULT_MAX_AGE_DAYS));
+        // Brings saved biographies in line with the compression setting; skipped once they are.
+        AppExecutors.get().execute(Priority.MAINTENANCE, () -> new DatabaseHelper(this).migrateStorageIfNeeded(this));
+
+        // Performance telemetry and its overlay are for debug builds only.
+        Telemetry.setEnabled(BuildConfig.DEBUG);
+        if (BuildConfig.DEBUG) {
+            TelemetryOverlay.install(this);
+        }
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        // The governor trims the byte-budgeted caches itself; pooled rows are only worth keeping
+        // while a list screen is in front.
+        if (level >= TRIM_MEMORY_BACKGROUND) {
+            SharedViewPool.clear();
+        }
+    }
+}
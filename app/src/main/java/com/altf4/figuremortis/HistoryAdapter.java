@@ -1,45 +1,100 @@
 package com.altf4.figuremortis;
 
-import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.AdapterListUpdateCallback;
+import androidx.recyclerview.widget.BatchingListUpdateCallback;
 import androidx.recyclerview.widget.RecyclerView;
 
+import com.altf4.figuremortis.telemetry.Stage;
+import com.altf4.figuremortis.telemetry.Telemetry;
+
 import java.util.List;
 
 public class HistoryAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
 
     private final List<DisplayItem> displayItems;
     private final OnClickListener onClickListener;
+    private final RowViewPreloader preloader;
+    // Positions into displayItems of the rows currently shown, ascending.
+    private int[] visible;
 
     public HistoryAdapter(List<DisplayItem> displayItems, OnClickListener onClickListener) {
+        this(displayItems, onClickListener, new RowViewPreloader());
+    }
+
+    public HistoryAdapter(List<DisplayItem> displayItems, OnClickListener onClickListener, RowViewPreloader preloader) {
         this.displayItems = displayItems;
         this.onClickListener = onClickListener;
+        this.preloader = preloader;
+        this.visible = new int[displayItems.size()];
+        for (int i = 0; i < visible.length; i++) {
+            visible[i] = i;
+        }
+    }
+
+    /**
+     * Shows only the rows at the given positions of the full list, e.g. from
+     * {@link DisplayItemIndex#positions}. The shown rows are always a subsequence of the full list
+     * before and after, so the change is found in one merge pass and dispatched as ranged
+     * inserts and removals instead of a DiffUtil run or a full rebind.
+     *
+     * @param positions Ascending positions into the list the adapter was created with.
+     */
+    public void filter(int[] positions) {
+        int[] previous = visible;
+        visible = positions;
+
+        BatchingListUpdateCallback updates = new BatchingListUpdateCallback(new AdapterListUpdateCallback(this));
+        int oldIndex = 0;
+        int newIndex = 0;
+        int adapterPosition = 0;
+        while (oldIndex < previous.length || newIndex < positions.length) {
+            if (newIndex == positions.length
+                    || (oldIndex < previous.length && previous[oldIndex] < positions[newIndex])) {
+                updates.onRemoved(adapterPosition, 1);
+                oldIndex++;
+            } else if (oldIndex == previous.length || positions[newIndex] < previous[oldIndex]) {
+                updates.onInserted(adapterPosition, 1);
+                adapterPosition++;
+                newIndex++;
+            } else {
+                adapterPosition++;
+                oldIndex++;
+                newIndex++;
+            }
+        }
+        updates.dispatchLastEvent();
     }
 
     @Override
     public int getItemViewType(int position) {
-        return displayItems.get(position).getType();
+        return displayItems.get(visible[position]).getType();
     }
 
     @NonNull
     @Override
     public RecyclerView.ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        long start = Telemetry.start();
+        RecyclerView.ViewHolder holder;
         if (viewType == DisplayItem.TYPE_HEADER) {
-            View view = LayoutInflater.from(parent.getContext()).inflate(R.layout.item_year_header, parent, false);
-            return new YearHeaderViewHolder(view);
+            View view = preloader.obtain(parent, R.layout.item_year_header);
+            holder = new YearHeaderViewHolder(view);
         } else {
-            View view = LayoutInflater.from(parent.getContext()).inflate(R.layout.item_person, parent, false);
-            return new PersonViewHolder(view);
+            View view = preloader.obtain(parent, R.layout.item_person);
+            holder = new PersonViewHolder(view);
         }
+        Telemetry.end(Stage.INFLATE, start);
+        return holder;
     }
 
     @Override
     public void onBindViewHolder(@NonNull RecyclerView.ViewHolder holder, int position) {
-        DisplayItem item = displayItems.get(position);
+        long start = Telemetry.start();
+        DisplayItem item = displayItems.get(visible[position]);
         if (holder.getItemViewType() == DisplayItem.TYPE_HEADER) {
             ((YearHeaderViewHolder) holder).yearTextView.setText(item.getYear());
         } else {
@@ -47,11 +102,18 @@ public class HistoryAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder
             personHolder.personName.setText(item.getDeath().getText());
             personHolder.itemView.setOnClickListener(v -> onClickListener.onItemClick(item.getDeath()));
         }
+        Telemetry.end(Stage.BIND, start);
+    }
+
+    @Override
+    public void onViewRecycled(@NonNull RecyclerView.ViewHolder holder) {
+        // Pooled rows may be reused by another screen; do not keep this one's listener alive.
+        holder.itemView.setOnClickListener(null);
     }
 
     @Override
     public int getItemCount() {
-        return displayItems.size();
+        return visible.length;
     }
 
     public static class PersonViewHolder extends RecyclerView.ViewHolder {
@@ -2,7 +2,10 @@ package com.altf4.figuremortis;
 
 import android.content.Intent;
 import android.os.Bundle;
+import android.text.Editable;
+import android.text.TextWatcher;
 import android.view.View;
+import android.widget.EditText;
 import android.widget.ProgressBar;
 import android.widget.TextView;
 import android.widget.Toast;
@@ -11,15 +14,24 @@ import androidx.appcompat.app.AppCompatActivity;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
+import com.altf4.figuremortis.db.DatabaseHelper;
+import com.altf4.figuremortis.exec.AppExecutors;
+import com.altf4.figuremortis.exec.Priority;
+import com.altf4.figuremortis.exec.TaskScope;
+import com.altf4.figuremortis.service.ApiEndpoints;
+import com.altf4.figuremortis.service.GeminiService;
+import com.altf4.figuremortis.telemetry.Stage;
+import com.altf4.figuremortis.telemetry.Telemetry;
+
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Collections;
-import java.util.Comparator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import retrofit2.Call;
 import retrofit2.Callback;
@@ -29,20 +41,38 @@ import retrofit2.converter.gson.GsonConverterFactory;
 
 public class MainActivity extends AppCompatActivity implements HistoryAdapter.OnClickListener {
 
+    // Figures per Gemini request when saving the whole day; keeps each grounded answer well within
+    // the output token limit.
+    private static final int SAVE_ALL_BATCH_SIZE = 10;
+
     private RecyclerView recyclerView;
     private ProgressBar progressBar;
     private TextView titleTextView;
+    private EditText filterInput;
+    private ProgressBar saveAllProgress;
+    private View saveAllButton;
+    private List<Death> todaysDeaths;
+    private TaskScope taskScope;
+    private HistoryAdapter adapter;
+    private DisplayItemIndex index;
+    private final RowViewPreloader rowPreloader = new RowViewPreloader();
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_main);
+        taskScope = TaskScope.of(this);
 
         recyclerView = findViewById(R.id.recyclerView);
         progressBar = findViewById(R.id.progressBar);
         titleTextView = findViewById(R.id.titleTextView);
+        filterInput = findViewById(R.id.filterInput);
+        saveAllProgress = findViewById(R.id.saveAllProgress);
+        saveAllButton = findViewById(R.id.btn_save_all);
 
-        recyclerView.setLayoutManager(new LinearLayoutManager(this));
+        LinearLayoutManager layoutManager = new LinearLayoutManager(this);
+        recyclerView.setLayoutManager(layoutManager);
+        SharedViewPool.attach(recyclerView, layoutManager);
 
         // Set the current date in the title
         Calendar calendar = Calendar.getInstance();
@@ -54,6 +84,23 @@ public class MainActivity extends AppCompatActivity implements HistoryAdapter.On
             startActivity(new Intent(this, SavedActivity.class));
         });
 
+        saveAllButton.setOnClickListener(v -> saveAll());
+
+        filterInput.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+            }
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {
+            }
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                applyFilter(s.toString());
+            }
+        });
+
         fetchData();
     }
 
@@ -62,8 +109,13 @@ public class MainActivity extends AppCompatActivity implements HistoryAdapter.On
         findViewById(R.id.loadingImage).setVisibility(View.VISIBLE);
         findViewById(R.id.loadingText).setVisibility(View.VISIBLE);
 
+        // Inflate the first screenful of rows while the request is in flight.
+        rowPreloader.preload(recyclerView, R.layout.item_person, 10);
+        rowPreloader.preload(recyclerView, R.layout.item_year_header, 4);
+
         Retrofit retrofit = new Retrofit.Builder()
-                .baseUrl("https://history.muffinlabs.com/")
+                .baseUrl(ApiEndpoints.historyBaseUrl())
+                .client(AppExecutors.get().httpClient(Priority.INTERACTIVE))
                 .addConverterFactory(GsonConverterFactory.create())
                 .build();
 
@@ -73,60 +125,144 @@ public class MainActivity extends AppCompatActivity implements HistoryAdapter.On
         int month = calendar.get(Calendar.MONTH) + 1;
         int day = calendar.get(Calendar.DAY_OF_MONTH);
 
-        Call<HistoryResponse> call = apiService.getEvents(month, day);
-        call.enqueue(new Callback<HistoryResponse>() {
+        taskScope.enqueue(apiService.getEvents(month, day), new Callback<HistoryResponse>() {
             @Override
             public void onResponse(Call<HistoryResponse> call, Response<HistoryResponse> response) {
-                progressBar.setVisibility(View.GONE);
-                findViewById(R.id.loadingImage).setVisibility(View.GONE);
-                findViewById(R.id.loadingText).setVisibility(View.GONE);
                 if (response.isSuccessful() && response.body() != null) {
                     List<Death> deaths = response.body().getData().getDeaths();
-
-                    // Sort deaths by year
-                    Collections.sort(deaths, new Comparator<Death>() {
-                        @Override
-                        public int compare(Death d1, Death d2) {
-                            return Integer.compare(Integer.parseInt(d1.getYear()), Integer.parseInt(d2.getYear()));
-                        }
+                    // Sorting, grouping and indexing can be sizeable on busy dates; keep them off the UI thread.
+                    taskScope.execute(Priority.INTERACTIVE, () -> {
+                        long groupStart = Telemetry.start();
+                        List<DisplayItem> displayItems = DisplayItem.fromDeaths(deaths);
+                        DisplayItemIndex displayIndex = DisplayItemIndex.build(displayItems);
+                        Telemetry.end(Stage.GROUP, groupStart);
+                        taskScope.postToMain(() -> {
+                            hideLoading();
+                            adapter = new HistoryAdapter(displayItems, MainActivity.this, rowPreloader);
+                            index = displayIndex;
+                            todaysDeaths = deaths;
+                            saveAllButton.setEnabled(!deaths.isEmpty());
+                            recyclerView.setAdapter(adapter);
+                            filterInput.setVisibility(View.VISIBLE);
+                            // Anything typed before the list arrived still applies.
+                            applyFilter(filterInput.getText().toString());
+                        });
                     });
-
-                    // Group deaths by year
-                    Map<String, List<Death>> deathsByYear = new LinkedHashMap<>();
-                    for (Death death : deaths) {
-                        String year = death.getYear();
-                        if (!deathsByYear.containsKey(year)) {
-                            deathsByYear.put(year, new ArrayList<>());
-                        }
-                        deathsByYear.get(year).add(death);
-                    }
-
-                    // Create DisplayItems
-                    List<DisplayItem> displayItems = new ArrayList<>();
-                    for (Map.Entry<String, List<Death>> entry : deathsByYear.entrySet()) {
-                        displayItems.add(new DisplayItem(DisplayItem.TYPE_HEADER, entry.getKey()));
-                        for (Death death : entry.getValue()) {
-                            displayItems.add(new DisplayItem(DisplayItem.TYPE_DEATH, death));
-                        }
-                    }
-
-                    HistoryAdapter adapter = new HistoryAdapter(displayItems, MainActivity.this);
-                    recyclerView.setAdapter(adapter);
                 } else {
+                    hideLoading();
                     Toast.makeText(MainActivity.this, "Failed to fetch data", Toast.LENGTH_SHORT).show();
                 }
             }
 
             @Override
             public void onFailure(Call<HistoryResponse> call, Throwable t) {
-                progressBar.setVisibility(View.GONE);
-                findViewById(R.id.loadingImage).setVisibility(View.GONE);
-                findViewById(R.id.loadingText).setVisibility(View.GONE);
+                if (call.isCanceled()) {
+                    return;
+                }
+                hideLoading();
                 Toast.makeText(MainActivity.this, "Error: " + t.getMessage(), Toast.LENGTH_SHORT).show();
             }
         });
     }
 
+    /**
+     * Fetches a biography for every figure of the day, a batch of figures per Gemini request, then
+     * saves them all in one transaction. Not tied to the scope: a save the user asked for must
+     * finish even if they leave; only the progress bar follows this Activity.
+     */
+    private void saveAll() {
+        List<Death> deaths = todaysDeaths;
+        if (deaths == null || deaths.isEmpty()) {
+            return;
+        }
+        saveAllButton.setEnabled(false);
+        // Fetching and writing each count for half of the bar.
+        saveAllProgress.setMax(deaths.size() * 2);
+        saveAllProgress.setProgress(0);
+        saveAllProgress.setVisibility(View.VISIBLE);
+
+        // Bulk work must not hold up a biography the user opens meanwhile.
+        GeminiService service = new GeminiService(BuildConfig.GEMINI_API_KEY, ApiEndpoints.geminiApiRoot(), Priority.PREFETCH);
+        DatabaseHelper db = new DatabaseHelper(getApplicationContext());
+        List<DatabaseHelper.NewFigure> figures = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger fetched = new AtomicInteger();
+        AtomicInteger pendingBatches = new AtomicInteger((deaths.size() + SAVE_ALL_BATCH_SIZE - 1) / SAVE_ALL_BATCH_SIZE);
+
+        for (int from = 0; from < deaths.size(); from += SAVE_ALL_BATCH_SIZE) {
+            List<Death> batch = deaths.subList(from, Math.min(from + SAVE_ALL_BATCH_SIZE, deaths.size()));
+            // Each result names the query it answers; its death year comes from that query's row.
+            Map<String, Death> deathsByQuery = new LinkedHashMap<>();
+            for (Death death : batch) {
+                deathsByQuery.put(death.getText() + " that was deceased in " + death.getYear(), death);
+            }
+            service.generateGroundedResponses(new ArrayList<>(deathsByQuery.keySet()), new GeminiService.BatchCallback() {
+                @Override
+                public void onComplete(List<GeminiService.BatchResult> results) {
+                    for (GeminiService.BatchResult result : results) {
+                        Death death = deathsByQuery.get(result.query);
+                        if (result.isSuccessful() && death != null) {
+                            figures.add(new DatabaseHelper.NewFigure(result.response, death.getYear()));
+                        }
+                    }
+                    onBatchDone(batch.size());
+                }
+
+                @Override
+                public void onFailure(Exception e) {
+                    onBatchDone(batch.size());
+                }
+
+                private void onBatchDone(int size) {
+                    int done = fetched.addAndGet(size);
+                    taskScope.postToMain(() -> saveAllProgress.setProgress(done));
+                    if (pendingBatches.decrementAndGet() == 0) {
+                        writeAll(db, figures, deaths.size());
+                    }
+                }
+            });
+        }
+    }
+
+    private void writeAll(DatabaseHelper db, List<DatabaseHelper.NewFigure> figures, int requested) {
+        // A bulk write must not queue ahead of a biography the user opens meanwhile.
+        AppExecutors.get().execute(Priority.MAINTENANCE, () -> {
+            DatabaseHelper.SaveResult result = db.saveFigures(figures, (done, total) ->
+                    taskScope.postToMain(() -> saveAllProgress.setProgress(requested + requested * done / Math.max(1, total))));
+            db.close();
+            int failed = requested - figures.size();
+            String message = "Saved " + result.inserted + " new, updated " + result.updated
+                    + (failed > 0 ? ", " + failed + " could not be fetched" : "");
+            AppExecutors.get().postToMain(() -> Toast.makeText(getApplicationContext(), message, Toast.LENGTH_LONG).show());
+            taskScope.postToMain(() -> {
+                saveAllProgress.setVisibility(View.GONE);
+                saveAllButton.setEnabled(true);
+            });
+        });
+    }
+
+    private void applyFilter(String query) {
+        if (index == null) {
+            return;
+        }
+        long start = Telemetry.start();
+        int[] positions = index.positions(query);
+        Telemetry.end(Stage.FILTER, start);
+        adapter.filter(positions);
+    }
+
+    private void hideLoading() {
+        progressBar.setVisibility(View.GONE);
+        findViewById(R.id.loadingImage).setVisibility(View.GONE);
+        findViewById(R.id.loadingText).setVisibility(View.GONE);
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        rowPreloader.clear();
+        SharedViewPool.detach(recyclerView);
+    }
+
     @Override
     public void onItemClick(Death death) {
         Intent intent = new Intent(this, DetailActivity.class);
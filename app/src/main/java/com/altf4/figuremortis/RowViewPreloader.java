@@ -0,0 +1,65 @@
+package com.altf4.figuremortis;
+
+import android.util.SparseArray;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+
+import androidx.annotation.LayoutRes;
+import androidx.asynclayoutinflater.view.AsyncLayoutInflater;
+
+import com.altf4.figuremortis.telemetry.Telemetry;
+
+import java.util.ArrayDeque;
+
+/**
+ * Inflates list rows on a background thread while a screen is still loading, and hands them to the
+ * adapter's {@code onCreateViewHolder} so the first screenful does not inflate in one long frame.
+ * Falls back to a normal inflation once the preloaded views run out. Rows are inflated with
+ * {@link SharedViewPool#rowContext} since they may end up in the shared pool. UI thread only.
+ */
+public class RowViewPreloader {
+
+    private final SparseArray<ArrayDeque<View>> views = new SparseArray<>();
+    private AsyncLayoutInflater inflater;
+
+    /**
+     * Starts inflating {@code count} rows of the given layout for the given parent.
+     */
+    public void preload(ViewGroup parent, @LayoutRes int layoutRes, int count) {
+        if (inflater == null) {
+            inflater = new AsyncLayoutInflater(SharedViewPool.rowContext(parent.getContext()));
+        }
+        for (int i = 0; i < count; i++) {
+            inflater.inflate(layoutRes, parent, (view, resid, p) -> queueFor(resid).add(view));
+        }
+    }
+
+    /**
+     * Returns a preloaded row if one is ready, otherwise inflates it now.
+     */
+    public View obtain(ViewGroup parent, @LayoutRes int layoutRes) {
+        View view = queueFor(layoutRes).poll();
+        Telemetry.cacheLookup("rows", view != null);
+        if (view != null) {
+            return view;
+        }
+        return LayoutInflater.from(SharedViewPool.rowContext(parent.getContext())).inflate(layoutRes, parent, false);
+    }
+
+    /**
+     * Drops any rows that were never used.
+     */
+    public void clear() {
+        views.clear();
+    }
+
+    private ArrayDeque<View> queueFor(@LayoutRes int layoutRes) {
+        ArrayDeque<View> queue = views.get(layoutRes);
+        if (queue == null) {
+            queue = new ArrayDeque<>();
+            views.put(layoutRes, queue);
+        }
+        return queue;
+    }
+}
@@ -1,23 +1,53 @@
 package com.altf4.figuremortis;
 
+import android.content.Context;
 import android.content.Intent;
+import android.net.Uri;
 import android.os.Bundle;
+import android.provider.DocumentsContract;
+import android.util.Log;
 import android.view.View;
+import android.widget.ProgressBar;
+import android.widget.Toast;
 
+import androidx.activity.result.ActivityResultLauncher;
+import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.altf4.figuremortis.db.DatabaseHelper;
-import com.altf4.figuremortis.service.GeminiService;
-import com.google.gson.Gson;
+import com.altf4.figuremortis.exec.AppExecutors;
+import com.altf4.figuremortis.exec.Priority;
+import com.altf4.figuremortis.exec.TaskScope;
 
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.ref.WeakReference;
+import java.text.SimpleDateFormat;
+import java.util.Date;
 import java.util.List;
+import java.util.Locale;
 
 public class SavedActivity extends AppCompatActivity implements SavedFiguresAdapter.OnClickListener {
 
+    private static final String TAG = "SavedActivity";
+    private static final String ARCHIVE_MIME_TYPE = "application/gzip";
+    // Some document providers report archives they did not create as generic binaries.
+    private static final String[] IMPORT_MIME_TYPES = {ARCHIVE_MIME_TYPE, "application/x-gzip", "application/octet-stream"};
+
     private RecyclerView recyclerView;
+    private ProgressBar transferProgress;
     private DatabaseHelper db;
+    private TaskScope taskScope;
+    private final RowViewPreloader rowPreloader = new RowViewPreloader();
+
+    private final ActivityResultLauncher<String> exportLauncher = registerForActivityResult(
+            new ActivityResultContracts.CreateDocument(ARCHIVE_MIME_TYPE), this::exportTo);
+    private final ActivityResultLauncher<String[]> importLauncher = registerForActivityResult(
+            new ActivityResultContracts.OpenDocument(), this::importFrom);
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -25,27 +55,174 @@ public class SavedActivity extends AppCompatActivity implements SavedFiguresAdap
         setContentView(R.layout.activity_saved);
 
         recyclerView = findViewById(R.id.savedRecyclerView);
-        recyclerView.setLayoutManager(new LinearLayoutManager(this));
+        transferProgress = findViewById(R.id.transferProgress);
+        LinearLayoutManager layoutManager = new LinearLayoutManager(this);
+        recyclerView.setLayoutManager(layoutManager);
+        SharedViewPool.attach(recyclerView, layoutManager);
+        // Cards not already in the shared pool are inflated while the figures load.
+        rowPreloader.preload(recyclerView, R.layout.item_person, 6);
 
         db = new DatabaseHelper(this);
-        List<GeminiService.GroundedResponse> figures = db.getAllFigures();
+        taskScope = TaskScope.of(this);
+        loadFigures();
+
+        findViewById(R.id.btn_export).setOnClickListener(v -> {
+            String date = new SimpleDateFormat("yyyy-MM-dd", Locale.US).format(new Date());
+            exportLauncher.launch("figure-mortis-" + date + ".fmar.gz");
+        });
+        findViewById(R.id.btn_import).setOnClickListener(v -> importLauncher.launch(IMPORT_MIME_TYPES));
+    }
 
-        if (figures.isEmpty()) {
-            findViewById(R.id.emptyImage).setVisibility(View.VISIBLE);
-            findViewById(R.id.emptyText).setVisibility(View.VISIBLE);
-        } else {
-            SavedFiguresAdapter adapter = new SavedFiguresAdapter(figures, this);
+    private void loadFigures() {
+        taskScope.execute(Priority.INTERACTIVE, () -> {
+            List<DatabaseHelper.FigureSummary> figures = db.getFigureSummaries();
+            taskScope.postToMain(() -> showFigures(figures));
+        });
+    }
+
+    private void showFigures(List<DatabaseHelper.FigureSummary> figures) {
+        int emptyVisibility = figures.isEmpty() ? View.VISIBLE : View.GONE;
+        findViewById(R.id.emptyImage).setVisibility(emptyVisibility);
+        findViewById(R.id.emptyText).setVisibility(emptyVisibility);
+        if (!figures.isEmpty()) {
+            SavedFiguresAdapter adapter = new SavedFiguresAdapter(figures, this, rowPreloader);
             recyclerView.setAdapter(adapter);
         }
     }
 
+    /**
+     * Streams the library to the document the user picked. Runs outside the scope so leaving the
+     * screen does not cut a backup short; only the progress bar is tied to this Activity.
+     */
+    private void exportTo(Uri uri) {
+        if (uri == null) {
+            return;
+        }
+        Context appContext = getApplicationContext();
+        TransferProgress progress = new TransferProgress(this, taskScope);
+        progress.show();
+        AppExecutors.get().execute(Priority.MAINTENANCE, () -> {
+            String message;
+            try (DatabaseHelper exportDb = new DatabaseHelper(appContext);
+                 OutputStream out = appContext.getContentResolver().openOutputStream(uri)) {
+                if (out == null) {
+                    throw new IOException("Could not open " + uri);
+                }
+                int count = exportDb.exportFigures(out, progress);
+                message = "Exported " + count + " figures";
+            } catch (IOException | RuntimeException e) {
+                message = "Export failed: " + e.getMessage();
+                deletePartialExport(appContext, uri);
+            }
+            progress.finish(appContext, message, false);
+        });
+    }
+
+    /**
+     * Removes the document a failed export was writing, so a partial archive is not left behind
+     * looking like a backup. Import would reject it anyway, as it has no end marker.
+     */
+    private static void deletePartialExport(Context context, Uri uri) {
+        try {
+            DocumentsContract.deleteDocument(context.getContentResolver(), uri);
+        } catch (FileNotFoundException | RuntimeException e) {
+            Log.w(TAG, "Could not delete partial export " + uri, e);
+        }
+    }
+
+    /**
+     * Adds the figures from an archive the user picked, then reloads the list if still visible.
+     */
+    private void importFrom(Uri uri) {
+        if (uri == null) {
+            return;
+        }
+        Context appContext = getApplicationContext();
+        TransferProgress progress = new TransferProgress(this, taskScope);
+        progress.show();
+        AppExecutors.get().execute(Priority.MAINTENANCE, () -> {
+            String message;
+            try (DatabaseHelper importDb = new DatabaseHelper(appContext);
+                 InputStream in = appContext.getContentResolver().openInputStream(uri)) {
+                if (in == null) {
+                    throw new IOException("Could not open " + uri);
+                }
+                DatabaseHelper.ImportResult result = importDb.importFigures(in, progress);
+                message = "Imported " + result.imported + " figures, skipped " + result.skipped;
+            } catch (IOException | RuntimeException e) {
+                message = "Import failed: " + e.getMessage();
+            }
+            // Chunks committed before a failure are kept, so reload either way.
+            progress.finish(appContext, message, true);
+        });
+    }
+
+    /**
+     * The screen's side of a running transfer. The transfer outlives the Activity, so this holds it
+     * weakly and posts through its scope: once the screen is destroyed, say by a rotation, updates
+     * are dropped instead of reaching stale views, and only the closing toast is shown.
+     */
+    private static final class TransferProgress implements DatabaseHelper.ProgressListener {
+
+        private final WeakReference<SavedActivity> activity;
+        private final TaskScope scope;
+
+        TransferProgress(SavedActivity activity, TaskScope scope) {
+            this.activity = new WeakReference<>(activity);
+            this.scope = scope;
+        }
+
+        void show() {
+            SavedActivity screen = activity.get();
+            if (screen != null) {
+                screen.transferProgress.setIndeterminate(true);
+                screen.transferProgress.setVisibility(View.VISIBLE);
+            }
+        }
+
+        @Override
+        public void onProgress(int done, int total) {
+            if (total <= 0) {
+                return;
+            }
+            scope.postToMain(() -> {
+                SavedActivity screen = activity.get();
+                if (screen != null) {
+                    screen.transferProgress.setIndeterminate(false);
+                    screen.transferProgress.setMax(total);
+                    screen.transferProgress.setProgress(done);
+                }
+            });
+        }
+
+        void finish(Context appContext, String message, boolean reload) {
+            AppExecutors.get().postToMain(() -> Toast.makeText(appContext, message, Toast.LENGTH_LONG).show());
+            scope.postToMain(() -> {
+                SavedActivity screen = activity.get();
+                if (screen != null) {
+                    screen.transferProgress.setVisibility(View.GONE);
+                    if (reload) {
+                        screen.loadFigures();
+                    }
+                }
+            });
+        }
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        rowPreloader.clear();
+        SharedViewPool.detach(recyclerView);
+        db.close();
+    }
+
     @Override
-    public void onItemClick(GeminiService.GroundedResponse figure) {
+    public void onItemClick(DatabaseHelper.FigureSummary figure) {
+        // The biography is read, and decompressed, by the detail screen itself.
         Intent intent = new Intent(this, DetailActivity.class);
+        intent.putExtra("PERSON_ID", figure.id);
         intent.putExtra("PERSON_TEXT", figure.name);
-        intent.putExtra("PERSON_BIRTH", figure.birth);
-        intent.putExtra("PERSON_DETAILS", figure.details);
-        intent.putExtra("PERSON_SOURCES", new Gson().toJson(figure.sources));
         startActivity(intent);
     }
 }
@@ -1,58 +1,74 @@
 package com.altf4.figuremortis;
 
-import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
-import android.widget.TextView;
 
 import androidx.annotation.NonNull;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.altf4.figuremortis.db.DatabaseHelper;
-import com.altf4.figuremortis.service.GeminiService;
+import com.altf4.figuremortis.telemetry.Stage;
+import com.altf4.figuremortis.telemetry.Telemetry;
 
 import java.util.List;
 
-public class SavedFiguresAdapter extends RecyclerView.Adapter<SavedFiguresAdapter.ViewHolder> {
+/**
+ * Rows use the same view type and holder as the person rows in {@link HistoryAdapter}, so both
+ * lists can share one {@link SharedViewPool}.
+ */
+public class SavedFiguresAdapter extends RecyclerView.Adapter<HistoryAdapter.PersonViewHolder> {
 
-    private final List<GeminiService.GroundedResponse> figures;
+    private final List<DatabaseHelper.FigureSummary> figures;
     private final OnClickListener onClickListener;
+    private final RowViewPreloader preloader;
 
-    public SavedFiguresAdapter(List<GeminiService.GroundedResponse> figures, OnClickListener onClickListener) {
+    public SavedFiguresAdapter(List<DatabaseHelper.FigureSummary> figures, OnClickListener onClickListener) {
+        this(figures, onClickListener, new RowViewPreloader());
+    }
+
+    public SavedFiguresAdapter(List<DatabaseHelper.FigureSummary> figures, OnClickListener onClickListener, RowViewPreloader preloader) {
         this.figures = figures;
         this.onClickListener = onClickListener;
+        this.preloader = preloader;
+    }
+
+    @Override
+    public int getItemViewType(int position) {
+        return DisplayItem.TYPE_DEATH;
     }
 
     @NonNull
     @Override
-    public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
-        View view = LayoutInflater.from(parent.getContext()).inflate(R.layout.item_person, parent, false);
-        return new ViewHolder(view);
+    public HistoryAdapter.PersonViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        long start = Telemetry.start();
+        View view = preloader.obtain(parent, R.layout.item_person);
+        HistoryAdapter.PersonViewHolder holder = new HistoryAdapter.PersonViewHolder(view);
+        Telemetry.end(Stage.INFLATE, start);
+        return holder;
     }
 
     @Override
-    public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
-        GeminiService.GroundedResponse figure = figures.get(position);
+    public void onBindViewHolder(@NonNull HistoryAdapter.PersonViewHolder holder, int position) {
+        long start = Telemetry.start();
+        DatabaseHelper.FigureSummary figure = figures.get(position);
         holder.personName.setText(figure.name);
 
         holder.itemView.setOnClickListener(v -> onClickListener.onItemClick(figure));
+        Telemetry.end(Stage.BIND, start);
     }
 
     @Override
-    public int getItemCount() {
-        return figures.size();
+    public void onViewRecycled(@NonNull HistoryAdapter.PersonViewHolder holder) {
+        // Pooled rows may be reused by another screen; do not keep this one's listener alive.
+        holder.itemView.setOnClickListener(null);
     }
 
-    public static class ViewHolder extends RecyclerView.ViewHolder {
-        TextView personName;
-
-        public ViewHolder(@NonNull View itemView) {
-            super(itemView);
-            personName = itemView.findViewById(R.id.personName);
-        }
+    @Override
+    public int getItemCount() {
+        return figures.size();
     }
 
     public interface OnClickListener {
-        void onItemClick(GeminiService.GroundedResponse figure);
+        void onItemClick(DatabaseHelper.FigureSummary figure);
     }
 }
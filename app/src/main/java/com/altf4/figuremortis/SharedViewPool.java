@@ -0,0 +1,85 @@
+package com.altf4.figuremortis;
+
+import android.content.Context;
+import android.view.ContextThemeWrapper;
+
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+/**
+ * A {@link RecyclerView.RecycledViewPool} shared by the day list and the saved list, which both
+ * show {@code item_person} cards. Opening one list after the other reuses the cards that are
+ * already inflated instead of inflating a new screenful.
+ * <p>
+ * Pooled rows outlive the screen that inflated them, so they are inflated with
+ * {@link #rowContext} rather than an Activity, and adapters drop their click listeners in
+ * {@code onViewRecycled}. The pool is emptied once the last list using it is detached. UI thread
+ * only.
+ */
+public final class SharedViewPool {
+
+    // Roughly two screenfuls of cards, so a fast fling never has to inflate.
+    private static final int MAX_PERSON_ROWS = 24;
+    // Headers are sparse; a handful covers every year visible at once.
+    private static final int MAX_HEADER_ROWS = 8;
+
+    private static RecyclerView.RecycledViewPool pool;
+    private static Context rowContext;
+    private static int attachments;
+
+    private SharedViewPool() {
+    }
+
+    /**
+     * Attaches the shared pool to a list and turns on item prefetch. Pair with {@link #detach}.
+     */
+    public static void attach(RecyclerView recyclerView, LinearLayoutManager layoutManager) {
+        layoutManager.setItemPrefetchEnabled(true);
+        recyclerView.setHasFixedSize(true);
+        recyclerView.setRecycledViewPool(get());
+        attachments++;
+    }
+
+    /**
+     * Detaches a list whose screen is being destroyed. Its rows are recycled into the pool for
+     * the other list; the pool is emptied when no list is left.
+     */
+    public static void detach(RecyclerView recyclerView) {
+        // Recycles the visible rows through onViewRecycled, which drops their listeners.
+        recyclerView.setAdapter(null);
+        if (--attachments <= 0) {
+            attachments = 0;
+            clear();
+        }
+    }
+
+    /**
+     * Drops the pooled views, e.g. under memory pressure. Lists still attached inflate new rows
+     * as needed.
+     */
+    public static void clear() {
+        if (pool != null) {
+            pool.clear();
+        }
+    }
+
+    /**
+     * The context pooled rows are inflated with: the application themed like the list screens,
+     * so a row never keeps the Activity that inflated it alive.
+     */
+    public static Context rowContext(Context context) {
+        if (rowContext == null) {
+            rowContext = new ContextThemeWrapper(context.getApplicationContext(), R.style.AppTheme);
+        }
+        return rowContext;
+    }
+
+    private static RecyclerView.RecycledViewPool get() {
+        if (pool == null) {
+            pool = new RecyclerView.RecycledViewPool();
+            pool.setMaxRecycledViews(DisplayItem.TYPE_DEATH, MAX_PERSON_ROWS);
+            pool.setMaxRecycledViews(DisplayItem.TYPE_HEADER, MAX_HEADER_ROWS);
+        }
+        return pool;
+    }
+}
@@ -2,22 +2,31 @@ package com.altf4.figuremortis.db;
 
 import android.content.ContentValues;
 import android.content.Context;
+import android.content.SharedPreferences;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
 
-import com.altf4.figuremortis.service.GeminiService;
-import com.altf4.figuremortis.service.GeminiService.GroundedResponse;
-import com.google.gson.Gson;
+import com.altf4.figuremortis.BuildConfig;
+import com.altf4.figuremortis.service.GroundedResponse;
+import com.altf4.figuremortis.telemetry.Stage;
+import com.altf4.figuremortis.telemetry.Telemetry;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class DatabaseHelper extends SQLiteOpenHelper {
 
     private static final String DATABASE_NAME = "mortis.db";
-    private static final int DATABASE_VERSION = 1;
+    private static final int DATABASE_VERSION = 5;
 
     private static final String TABLE_SAVED_FIGURES = "saved_figures";
     private static final String COLUMN_ID = "id";
@@ -26,6 +35,14 @@ public class DatabaseHelper extends SQLiteOpenHelper {
     private static final String COLUMN_DEATH_YEAR = "death_year";
     private static final String COLUMN_DETAILS = "details";
     private static final String COLUMN_SOURCES = "sources";
+    // When the biography was last saved or checked by the background refresh, in epoch millis.
+    private static final String COLUMN_REFRESHED_AT = "refreshed_at";
+
+    // Details and sources are TEXT, or a BiographyCodec BLOB when compression is on. A BLOB names
+    // the row in this table holding the dictionary it was compressed with.
+    private static final String TABLE_DICTIONARIES = "codec_dictionaries";
+    private static final String COLUMN_DICTIONARY = "dictionary";
+    private static final String COLUMN_CREATED_AT = "created_at";
 
     private static final String CREATE_TABLE_SAVED_FIGURES = "CREATE TABLE " + TABLE_SAVED_FIGURES + "(" +
             COLUMN_ID + " INTEGER PRIMARY KEY AUTOINCREMENT," +
@@ -33,77 +50,629 @@ public class DatabaseHelper extends SQLiteOpenHelper {
             COLUMN_BIRTH_DATE + " TEXT," +
             COLUMN_DEATH_YEAR + " TEXT," +
             COLUMN_DETAILS + " TEXT NOT NULL," +
-            COLUMN_SOURCES + " TEXT" +
+            COLUMN_SOURCES + " TEXT," +
+            COLUMN_REFRESHED_AT + " INTEGER NOT NULL DEFAULT 0" +
+            ")";
+
+    private static final String CREATE_TABLE_DICTIONARIES = "CREATE TABLE IF NOT EXISTS " + TABLE_DICTIONARIES + "(" +
+            COLUMN_ID + " INTEGER PRIMARY KEY," +
+            COLUMN_DICTIONARY + " BLOB NOT NULL," +
+            COLUMN_CREATED_AT + " INTEGER NOT NULL" +
             ")";
 
+    // One row per figure; import and bulk saves rely on it to skip or update duplicates. SQLite
+    // treats NULLs as distinct in a unique index, so an unknown death year is indexed as ''.
+    private static final String INDEX_NAME_DEATH_YEAR = "idx_saved_figures_name_death_year";
+    private static final String CREATE_INDEX_NAME_DEATH_YEAR = "CREATE UNIQUE INDEX IF NOT EXISTS " +
+            INDEX_NAME_DEATH_YEAR + " ON " + TABLE_SAVED_FIGURES + "(" + COLUMN_NAME + ", IFNULL(" + COLUMN_DEATH_YEAR + ", ''))";
+
+    // The background refresh picks the least recently refreshed figures first.
+    private static final String CREATE_INDEX_REFRESHED_AT = "CREATE INDEX IF NOT EXISTS " +
+            "idx_saved_figures_refreshed_at ON " + TABLE_SAVED_FIGURES + "(" + COLUMN_REFRESHED_AT + ")";
+
+    private static final String INSERT_IF_ABSENT = "INSERT OR IGNORE INTO " + TABLE_SAVED_FIGURES + "(" +
+            COLUMN_NAME + ", " + COLUMN_BIRTH_DATE + ", " + COLUMN_DEATH_YEAR + ", " + COLUMN_DETAILS + ", " + COLUMN_SOURCES +
+            ", " + COLUMN_REFRESHED_AT + ") VALUES (?, ?, ?, ?, ?, ?)";
+
+    // Refreshes a saved figure in place, keeping its id. Compares death years the way the unique
+    // index does, so a null and an empty year are the same figure rather than an ignored insert.
+    private static final String UPDATE_BY_NAME_DEATH_YEAR = "UPDATE " + TABLE_SAVED_FIGURES + " SET " +
+            COLUMN_BIRTH_DATE + " = ?, " + COLUMN_DETAILS + " = ?, " + COLUMN_SOURCES + " = ?, " + COLUMN_REFRESHED_AT +
+            " = ? WHERE " + COLUMN_NAME + " = ? AND IFNULL(" + COLUMN_DEATH_YEAR + ", '') = IFNULL(?, '')";
+
+    // Background refresh writes only apply if the row has not been saved again since it was read.
+    private static final String UPDATE_REFRESHED = "UPDATE " + TABLE_SAVED_FIGURES + " SET " +
+            COLUMN_BIRTH_DATE + " = ?, " + COLUMN_DETAILS + " = ?, " + COLUMN_SOURCES + " = ?, " + COLUMN_REFRESHED_AT +
+            " = ? WHERE " + COLUMN_ID + " = ? AND " + COLUMN_REFRESHED_AT + " = ?";
+    private static final String UPDATE_CHECKED = "UPDATE " + TABLE_SAVED_FIGURES + " SET " + COLUMN_REFRESHED_AT +
+            " = ? WHERE " + COLUMN_ID + " = ? AND " + COLUMN_REFRESHED_AT + " = ?";
+
+    private static final String UPDATE_STORAGE = "UPDATE " + TABLE_SAVED_FIGURES + " SET " +
+            COLUMN_DETAILS + " = ?, " + COLUMN_SOURCES + " = ? WHERE " + COLUMN_ID + " = ?";
+
+    // Remembers, per database, the storage format migrateStorage last completed for.
+    private static final String STORAGE_PREFS = "storage";
+    private static final String KEY_MIGRATED_FORMAT = "migrated_format_";
+
+    // Report bulk save progress this often; each report posts to the UI thread.
+    private static final int SAVE_PROGRESS_INTERVAL = 25;
+
+    // Rows imported per transaction: large enough to amortize the commit, small enough that
+    // readers on other threads are not locked out for long.
+    private static final int IMPORT_CHUNK_SIZE = 500;
+
+    // A dictionary trained on a handful of biographies would mostly hold their names; wait for a
+    // library worth compressing, and train on its most recent figures.
+    private static final int MIN_DICTIONARY_SAMPLES = 20;
+    private static final int MAX_DICTIONARY_SAMPLES = 250;
+
+    /**
+     * Receives progress of a long-running database operation, on the thread running it.
+     */
+    public interface ProgressListener {
+        /**
+         * @param total The expected number of rows, or -1 if unknown.
+         */
+        void onProgress(int done, int total);
+    }
+
+    /**
+     * A biography to save, with the death year it is filed under.
+     */
+    public static final class NewFigure {
+        public final GroundedResponse response;
+        public final String deathYear;
+
+        public NewFigure(GroundedResponse response, String deathYear) {
+            this.response = response;
+            this.deathYear = deathYear;
+        }
+    }
+
+    /**
+     * A row of the saved list: enough to show and open a figure, without reading its biography.
+     */
+    public static final class FigureSummary {
+        public final int id;
+        public final String name;
+
+        FigureSummary(int id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+    }
+
+    /**
+     * The outcome of {@link #saveFigures}.
+     */
+    public static final class SaveResult {
+        public final int inserted;
+        public final int updated;
+
+        SaveResult(int inserted, int updated) {
+            this.inserted = inserted;
+            this.updated = updated;
+        }
+    }
+
+    /**
+     * A saved figure due for a background refresh, as read by {@link #getStaleFigures}.
+     */
+    public static final class StaleFigure {
+        public final long id;
+        public final String name;
+        public final String deathYear;
+        public final String details;
+        public final long refreshedAt;
+
+        public StaleFigure(long id, String name, String deathYear, String details, long refreshedAt) {
+            this.id = id;
+            this.name = name;
+            this.deathYear = deathYear;
+            this.details = details;
+            this.refreshedAt = refreshedAt;
+        }
+    }
+
+    /**
+     * The outcome of refreshing one {@link StaleFigure}: a new biography, or null to keep the
+     * saved one and only record that it was checked.
+     */
+    public static final class Refresh {
+        public final StaleFigure figure;
+        public final GroundedResponse response;
+
+        public Refresh(StaleFigure figure, GroundedResponse response) {
+            this.figure = figure;
+            this.response = response;
+        }
+    }
+
+    /**
+     * The outcome of {@link #importFigures}.
+     */
+    public static final class ImportResult {
+        public final int imported;
+        public final int skipped;
+
+        ImportResult(int imported, int skipped) {
+            this.imported = imported;
+            this.skipped = skipped;
+        }
+    }
+
+    private final boolean compressBiographies;
+    // Dictionaries never change once stored, so each is read at most once per helper.
+    private final Map<Integer, BiographyCodec> codecs = new ConcurrentHashMap<>();
+    private volatile BiographyCodec writeCodec;
+
     public DatabaseHelper(Context context) {
-        super(context, DATABASE_NAME, null, DATABASE_VERSION);
+        this(context, DATABASE_NAME, BuildConfig.COMPRESS_BIOGRAPHIES);
+    }
+
+    /**
+     * @param compressBiographies Whether details and sources are written compressed. Either way,
+     *                            rows written with the other setting stay readable until
+     *                            {@link #migrateStorage} converts them.
+     */
+    public DatabaseHelper(Context context, String databaseName, boolean compressBiographies) {
+        super(context, databaseName, null, DATABASE_VERSION);
+        this.compressBiographies = compressBiographies;
     }
 
     @Override
     public void onCreate(SQLiteDatabase db) {
         db.execSQL(CREATE_TABLE_SAVED_FIGURES);
+        db.execSQL(CREATE_INDEX_NAME_DEATH_YEAR);
+        db.execSQL(CREATE_INDEX_REFRESHED_AT);
+        db.execSQL(CREATE_TABLE_DICTIONARIES);
     }
 
     @Override
     public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
-        db.execSQL("DROP TABLE IF EXISTS " + TABLE_SAVED_FIGURES);
-        onCreate(db);
+        if (oldVersion < 2) {
+            // Saving a figure twice used to add a second row; keep the latest before enforcing uniqueness.
+            db.execSQL("DELETE FROM " + TABLE_SAVED_FIGURES + " WHERE " + COLUMN_ID + " NOT IN (SELECT MAX(" + COLUMN_ID +
+                    ") FROM " + TABLE_SAVED_FIGURES + " GROUP BY " + COLUMN_NAME + ", " + COLUMN_DEATH_YEAR + ")");
+            db.execSQL(CREATE_INDEX_NAME_DEATH_YEAR);
+        }
+        if (oldVersion < 3) {
+            // Existing rows start out as never refreshed, so the first background run picks them up.
+            db.execSQL("ALTER TABLE " + TABLE_SAVED_FIGURES + " ADD COLUMN " + COLUMN_REFRESHED_AT + " INTEGER NOT NULL DEFAULT 0");
+            db.execSQL(CREATE_INDEX_REFRESHED_AT);
+        }
+        if (oldVersion < 4) {
+            // Existing rows stay TEXT; migrateStorage compresses them when compression is on.
+            db.execSQL(CREATE_TABLE_DICTIONARIES);
+        }
+        if (oldVersion < 5) {
+            // The old index let figures without a death year be saved more than once; keep the
+            // latest of each. GROUP BY already puts NULL death years together.
+            db.execSQL("DROP INDEX IF EXISTS " + INDEX_NAME_DEATH_YEAR);
+            db.execSQL("DELETE FROM " + TABLE_SAVED_FIGURES + " WHERE " + COLUMN_ID + " NOT IN (SELECT MAX(" + COLUMN_ID +
+                    ") FROM " + TABLE_SAVED_FIGURES + " GROUP BY " + COLUMN_NAME + ", " + COLUMN_DEATH_YEAR + ")");
+            db.execSQL(CREATE_INDEX_NAME_DEATH_YEAR);
+        }
+    }
+
+    public void addFigure(GroundedResponse response, String deathYear) {
+        saveFigures(Collections.singletonList(new NewFigure(response, deathYear)), null);
+        close();
     }
 
-    public void addFigure(GeminiService.GroundedResponse response, String deathYear) {
+    /**
+     * Saves several biographies in one transaction, through a compiled UPDATE and INSERT reused for
+     * every row. A figure already saved under the same name and death year is refreshed in place;
+     * any other is inserted. Figures without a name or details are skipped. Must be called off
+     * the UI thread.
+     *
+     * @param listener Notified every few rows, or null.
+     */
+    public SaveResult saveFigures(Collection<NewFigure> figures, ProgressListener listener) {
+        long start = Telemetry.start();
         SQLiteDatabase db = this.getWritableDatabase();
-        ContentValues values = new ContentValues();
-        values.put(COLUMN_NAME, response.name);
-        values.put(COLUMN_BIRTH_DATE, response.birth);
-        values.put(COLUMN_DEATH_YEAR, deathYear);
-        values.put(COLUMN_DETAILS, response.details);
-        values.put(COLUMN_SOURCES, new Gson().toJson(response.sources));
-        db.insert(TABLE_SAVED_FIGURES, null, values);
-        db.close();
+        int inserted = 0;
+        int updated = 0;
+        int done = 0;
+        long now = System.currentTimeMillis();
+        BiographyCodec codec = getWriteCodec(db);
+        db.beginTransactionNonExclusive();
+        try (SQLiteStatement update = db.compileStatement(UPDATE_BY_NAME_DEATH_YEAR);
+             SQLiteStatement insert = db.compileStatement(INSERT_IF_ABSENT)) {
+            for (NewFigure figure : figures) {
+                done++;
+                if (figure.response.name == null || figure.response.details == null) {
+                    continue;
+                }
+                String sources = SourcesCodec.toJson(figure.response.sources);
+                bindNullable(update, 1, figure.response.birth);
+                bindBiography(update, 2, figure.response.details, codec);
+                bindBiography(update, 3, sources, codec);
+                update.bindLong(4, now);
+                bindNullable(update, 5, figure.response.name);
+                bindNullable(update, 6, figure.deathYear);
+                if (update.executeUpdateDelete() > 0) {
+                    updated++;
+                } else {
+                    bindNullable(insert, 1, figure.response.name);
+                    bindNullable(insert, 2, figure.response.birth);
+                    bindNullable(insert, 3, figure.deathYear);
+                    bindBiography(insert, 4, figure.response.details, codec);
+                    bindBiography(insert, 5, sources, codec);
+                    insert.bindLong(6, now);
+                    if (insert.executeInsert() != -1) {
+                        inserted++;
+                    }
+                }
+                if (listener != null && done % SAVE_PROGRESS_INTERVAL == 0) {
+                    listener.onProgress(done, figures.size());
+                }
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            Telemetry.end(Stage.DB_WRITE, start);
+        }
+        if (listener != null) {
+            listener.onProgress(done, figures.size());
+        }
+        return new SaveResult(inserted, updated);
     }
 
-    public GeminiService.GroundedResponse getFigure(int id) {
+    /**
+     * @return The figure with its biography decompressed, or null if it is no longer saved.
+     */
+    public GroundedResponse getFigure(int id) {
+        long start = Telemetry.start();
         SQLiteDatabase db = this.getReadableDatabase();
         Cursor cursor = db.query(TABLE_SAVED_FIGURES, new String[]{COLUMN_ID, COLUMN_NAME, COLUMN_BIRTH_DATE, COLUMN_DEATH_YEAR, COLUMN_DETAILS, COLUMN_SOURCES},
                 COLUMN_ID + "=?", new String[]{String.valueOf(id)}, null, null, null, null);
-        if (cursor != null)
-            cursor.moveToFirst();
+        if (!cursor.moveToFirst()) {
+            cursor.close();
+            Telemetry.end(Stage.DB_READ, start);
+            return null;
+        }
 
-        GeminiService.GroundedResponse response = new GeminiService.GroundedResponse();
+        GroundedResponse response = new GroundedResponse();
         response.name = cursor.getString(1);
         response.birth = cursor.getString(2);
-        response.details = cursor.getString(4);
-        response.sources = new Gson().fromJson(cursor.getString(5), new com.google.gson.reflect.TypeToken<List<Map<String, String>>>(){}.getType());
+        response.details = readBiography(cursor, 4);
+        response.sources = SourcesCodec.fromJson(readBiography(cursor, 5));
 
         cursor.close();
+        Telemetry.end(Stage.DB_READ, start);
         return response;
     }
 
-    public List<GeminiService.GroundedResponse> getAllFigures() {
-        List<GeminiService.GroundedResponse> figureList = new ArrayList<>();
-        String selectQuery = "SELECT  * FROM " + TABLE_SAVED_FIGURES;
-        SQLiteDatabase db = this.getWritableDatabase();
-        Cursor cursor = db.rawQuery(selectQuery, null);
-
-        if (cursor.moveToFirst()) {
-            do {
-                GeminiService.GroundedResponse response = new GeminiService.GroundedResponse();
-                response.name = cursor.getString(1);
-                response.birth = cursor.getString(2);
-                response.details = cursor.getString(4);
-                response.sources = new Gson().fromJson(cursor.getString(5), new com.google.gson.reflect.TypeToken<List<Map<String, String>>>(){}.getType());
-                figureList.add(response);
-            } while (cursor.moveToNext());
+    /**
+     * Reads the saved list in the order figures were saved. Only the id and name columns are
+     * read, which come before the biography in each row, so SQLite does not load its overflow
+     * pages and nothing is decompressed.
+     */
+    public List<FigureSummary> getFigureSummaries() {
+        long start = Telemetry.start();
+        List<FigureSummary> summaries = new ArrayList<>();
+        SQLiteDatabase db = this.getReadableDatabase();
+        try (Cursor cursor = db.query(TABLE_SAVED_FIGURES, new String[]{COLUMN_ID, COLUMN_NAME},
+                null, null, null, null, COLUMN_ID)) {
+            while (cursor.moveToNext()) {
+                summaries.add(new FigureSummary(cursor.getInt(0), cursor.getString(1)));
+            }
         }
-
-        cursor.close();
-        return figureList;
+        Telemetry.end(Stage.DB_READ, start);
+        return summaries;
     }
 
     public void deleteFigure(int id) {
+        long start = Telemetry.start();
         SQLiteDatabase db = this.getWritableDatabase();
         db.delete(TABLE_SAVED_FIGURES, COLUMN_ID + " = ?", new String[]{String.valueOf(id)});
         db.close();
+        Telemetry.end(Stage.DB_WRITE, start);
+    }
+
+    /**
+     * Streams every saved figure into a {@link FigureArchive}, one cursor row at a time, so memory
+     * use does not depend on the number of figures. Must be called off the UI thread.
+     *
+     * @return The number of figures written.
+     */
+    public int exportFigures(OutputStream out, ProgressListener listener) throws IOException {
+        SQLiteDatabase db = this.getReadableDatabase();
+        int written = 0;
+        try (Cursor cursor = db.query(TABLE_SAVED_FIGURES,
+                new String[]{COLUMN_NAME, COLUMN_BIRTH_DATE, COLUMN_DEATH_YEAR, COLUMN_DETAILS, COLUMN_SOURCES},
+                null, null, null, null, COLUMN_ID);
+             FigureArchive.Writer writer = new FigureArchive.Writer(out, cursor.getCount())) {
+            int total = cursor.getCount();
+            FigureArchive.Record record = new FigureArchive.Record();
+            while (cursor.moveToNext()) {
+                record.name = cursor.getString(0);
+                record.birthDate = cursor.getString(1);
+                record.deathYear = cursor.getString(2);
+                // Archives always hold plain text, so they do not depend on this database's dictionaries.
+                record.details = readBiography(cursor, 3);
+                record.sourcesJson = readBiography(cursor, 4);
+                writer.write(record);
+                written++;
+                if (written % IMPORT_CHUNK_SIZE == 0) {
+                    listener.onProgress(written, total);
+                }
+            }
+            // Only a complete export gets the end marker; closing without it marks the file partial.
+            writer.finish();
+            listener.onProgress(written, total);
+        }
+        return written;
+    }
+
+    /**
+     * Adds the figures in a {@link FigureArchive}, skipping any whose name and death year are
+     * already saved. Rows are inserted through one compiled statement in transactions of
+     * {@value #IMPORT_CHUNK_SIZE}, so a failure part-way keeps the chunks committed so far.
+     * Must be called off the UI thread.
+     *
+     * @throws IOException If the archive cannot be read, or is truncated or corrupt.
+     */
+    public ImportResult importFigures(InputStream in, ProgressListener listener) throws IOException {
+        SQLiteDatabase db = this.getWritableDatabase();
+        int imported = 0;
+        int skipped = 0;
+        try (FigureArchive.Reader reader = new FigureArchive.Reader(in);
+             SQLiteStatement insert = db.compileStatement(INSERT_IF_ABSENT)) {
+            int total = reader.getCount();
+            long now = System.currentTimeMillis();
+            BiographyCodec codec = getWriteCodec(db);
+            FigureArchive.Record record = new FigureArchive.Record();
+            boolean more = true;
+            while (more) {
+                long start = Telemetry.start();
+                db.beginTransactionNonExclusive();
+                try {
+                    for (int i = 0; i < IMPORT_CHUNK_SIZE && (more = reader.next(record)); i++) {
+                        // Skip rows the schema would reject instead of failing the whole chunk.
+                        if (record.name == null || record.details == null) {
+                            skipped++;
+                            continue;
+                        }
+                        bindNullable(insert, 1, record.name);
+                        bindNullable(insert, 2, record.birthDate);
+                        bindNullable(insert, 3, record.deathYear);
+                        bindBiography(insert, 4, record.details, codec);
+                        bindBiography(insert, 5, record.sourcesJson, codec);
+                        insert.bindLong(6, now);
+                        if (insert.executeInsert() == -1) {
+                            skipped++;
+                        } else {
+                            imported++;
+                        }
+                    }
+                    db.setTransactionSuccessful();
+                } finally {
+                    db.endTransaction();
+                    Telemetry.end(Stage.DB_WRITE, start);
+                }
+                listener.onProgress(imported + skipped, total);
+            }
+        }
+        return new ImportResult(imported, skipped);
+    }
+
+    /**
+     * Reads the figures least recently saved or refreshed, oldest first.
+     *
+     * @param refreshedBefore Only figures last refreshed before this time, in epoch millis.
+     * @param limit           The maximum number of figures to return.
+     */
+    public List<StaleFigure> getStaleFigures(long refreshedBefore, int limit) {
+        long start = Telemetry.start();
+        SQLiteDatabase db = this.getReadableDatabase();
+        List<StaleFigure> figures = new ArrayList<>();
+        try (Cursor cursor = db.query(TABLE_SAVED_FIGURES,
+                new String[]{COLUMN_ID, COLUMN_NAME, COLUMN_DEATH_YEAR, COLUMN_DETAILS, COLUMN_REFRESHED_AT},
+                COLUMN_REFRESHED_AT + " < ?", new String[]{String.valueOf(refreshedBefore)},
+                null, null, COLUMN_REFRESHED_AT, String.valueOf(limit))) {
+            while (cursor.moveToNext()) {
+                figures.add(new StaleFigure(cursor.getLong(0), cursor.getString(1), cursor.getString(2),
+                        readBiography(cursor, 3), cursor.getLong(4)));
+            }
+        }
+        Telemetry.end(Stage.DB_READ, start);
+        return figures;
+    }
+
+    /**
+     * Writes back the outcome of a background refresh in one short transaction. A figure saved
+     * again since it was read by {@link #getStaleFigures} is left alone.
+     *
+     * @return The number of biographies replaced.
+     */
+    public int applyRefreshes(List<Refresh> refreshes) {
+        long start = Telemetry.start();
+        SQLiteDatabase db = this.getWritableDatabase();
+        long now = System.currentTimeMillis();
+        int replaced = 0;
+        BiographyCodec codec = getWriteCodec(db);
+        db.beginTransactionNonExclusive();
+        try (SQLiteStatement update = db.compileStatement(UPDATE_REFRESHED);
+             SQLiteStatement checked = db.compileStatement(UPDATE_CHECKED)) {
+            for (Refresh refresh : refreshes) {
+                if (refresh.response == null) {
+                    checked.bindLong(1, now);
+                    checked.bindLong(2, refresh.figure.id);
+                    checked.bindLong(3, refresh.figure.refreshedAt);
+                    checked.executeUpdateDelete();
+                    continue;
+                }
+                bindNullable(update, 1, refresh.response.birth);
+                bindBiography(update, 2, refresh.response.details, codec);
+                bindBiography(update, 3, SourcesCodec.toJson(refresh.response.sources), codec);
+                update.bindLong(4, now);
+                update.bindLong(5, refresh.figure.id);
+                update.bindLong(6, refresh.figure.refreshedAt);
+                replaced += update.executeUpdateDelete();
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            Telemetry.end(Stage.DB_WRITE, start);
+        }
+        return replaced;
+    }
+
+    /**
+     * Converts stored biographies to the current compression setting, in transactions of
+     * {@value #IMPORT_CHUNK_SIZE} rows so the saved list stays readable meanwhile. With
+     * compression on, the first run trains the dictionary from the most recent biographies, once
+     * at least {@value #MIN_DICTIONARY_SAMPLES} are saved; until then rows stay TEXT. With it off,
+     * compressed rows are restored to TEXT. Must be called off the UI thread.
+     *
+     * @return The number of rows converted, or -1 if compression is on but too few biographies
+     * are saved yet to train the dictionary.
+     */
+    public int migrateStorage() {
+        SQLiteDatabase db = this.getWritableDatabase();
+        BiographyCodec codec = null;
+        if (compressBiographies) {
+            codec = getWriteCodec(db);
+            if (codec == null && (codec = trainDictionary(db)) == null) {
+                return -1;
+            }
+        }
+        String[] from = {compressBiographies ? "text" : "blob"};
+        String selection = "typeof(" + COLUMN_DETAILS + ") = ?1 OR typeof(" + COLUMN_SOURCES + ") = ?1";
+        int converted = 0;
+        int chunk;
+        do {
+            long start = Telemetry.start();
+            chunk = 0;
+            db.beginTransactionNonExclusive();
+            try (Cursor cursor = db.query(TABLE_SAVED_FIGURES, new String[]{COLUMN_ID, COLUMN_DETAILS, COLUMN_SOURCES},
+                    selection, from, null, null, COLUMN_ID, String.valueOf(IMPORT_CHUNK_SIZE));
+                 SQLiteStatement update = db.compileStatement(UPDATE_STORAGE)) {
+                while (cursor.moveToNext()) {
+                    bindBiography(update, 1, readBiography(cursor, 1), codec);
+                    bindBiography(update, 2, readBiography(cursor, 2), codec);
+                    update.bindLong(3, cursor.getLong(0));
+                    update.executeUpdateDelete();
+                    chunk++;
+                }
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+                Telemetry.end(Stage.DB_WRITE, start);
+            }
+            converted += chunk;
+        } while (chunk == IMPORT_CHUNK_SIZE);
+        return converted;
+    }
+
+    /**
+     * Runs {@link #migrateStorage} unless a previous run already completed for the current
+     * compression setting and codec format, so later starts read one preference instead of
+     * scanning every row's storage type. Closes the database afterwards. Must be called off the
+     * UI thread.
+     */
+    public void migrateStorageIfNeeded(Context context) {
+        SharedPreferences prefs = context.getSharedPreferences(STORAGE_PREFS, Context.MODE_PRIVATE);
+        String key = KEY_MIGRATED_FORMAT + getDatabaseName();
+        String format = compressBiographies ? "deflate-dictionary-" + BiographyCodec.FORMAT_DEFLATE_DICTIONARY : "text";
+        if (format.equals(prefs.getString(key, null))) {
+            return;
+        }
+        try {
+            // Until a dictionary can be trained, new rows stay TEXT and every start tries again.
+            if (migrateStorage() >= 0) {
+                prefs.edit().putString(key, format).apply();
+            }
+        } finally {
+            close();
+        }
+    }
+
+    /**
+     * @return The codec new biographies are written with, or null to write them as TEXT.
+     */
+    private BiographyCodec getWriteCodec(SQLiteDatabase db) {
+        if (!compressBiographies) {
+            return null;
+        }
+        BiographyCodec codec = writeCodec;
+        if (codec == null) {
+            try (Cursor cursor = db.query(TABLE_DICTIONARIES, new String[]{COLUMN_ID, COLUMN_DICTIONARY},
+                    null, null, null, null, COLUMN_ID + " DESC", "1")) {
+                if (cursor.moveToFirst()) {
+                    codec = new BiographyCodec(cursor.getInt(0), cursor.getBlob(1));
+                    codecs.put(codec.getDictionaryId(), codec);
+                    writeCodec = codec;
+                }
+            }
+        }
+        return codec;
+    }
+
+    private BiographyCodec trainDictionary(SQLiteDatabase db) {
+        List<String> samples = new ArrayList<>();
+        try (Cursor cursor = db.query(TABLE_SAVED_FIGURES, new String[]{COLUMN_DETAILS, COLUMN_SOURCES},
+                null, null, null, null, COLUMN_ID + " DESC", String.valueOf(MAX_DICTIONARY_SAMPLES))) {
+            if (cursor.getCount() < MIN_DICTIONARY_SAMPLES) {
+                return null;
+            }
+            while (cursor.moveToNext()) {
+                samples.add(readBiography(cursor, 0));
+                samples.add(readBiography(cursor, 1));
+            }
+        }
+        byte[] dictionary = BiographyCodec.train(samples, BiographyCodec.DEFAULT_DICTIONARY_SIZE);
+        if (dictionary.length == 0) {
+            return null;
+        }
+        ContentValues values = new ContentValues();
+        values.put(COLUMN_DICTIONARY, dictionary);
+        values.put(COLUMN_CREATED_AT, System.currentTimeMillis());
+        long id = db.insertOrThrow(TABLE_DICTIONARIES, null, values);
+        BiographyCodec codec = new BiographyCodec((int) id, dictionary);
+        codecs.put(codec.getDictionaryId(), codec);
+        writeCodec = codec;
+        return codec;
+    }
+
+    /**
+     * Reads a details or sources column, decompressing it if it was stored as a BLOB.
+     */
+    private String readBiography(Cursor cursor, int column) {
+        if (cursor.getType(column) != Cursor.FIELD_TYPE_BLOB) {
+            return cursor.getString(column);
+        }
+        byte[] value = cursor.getBlob(column);
+        return codecFor(BiographyCodec.dictionaryIdOf(value)).decode(value);
+    }
+
+    private BiographyCodec codecFor(int dictionaryId) {
+        return codecs.computeIfAbsent(dictionaryId, id -> {
+            try (Cursor cursor = getReadableDatabase().query(TABLE_DICTIONARIES, new String[]{COLUMN_DICTIONARY},
+                    COLUMN_ID + " = ?", new String[]{String.valueOf(id)}, null, null, null)) {
+                if (!cursor.moveToFirst()) {
+                    throw new IllegalStateException("Missing compression dictionary " + id);
+                }
+                return new BiographyCodec(id, cursor.getBlob(0));
+            }
+        });
+    }
+
+    private static void bindBiography(SQLiteStatement statement, int index, String value, BiographyCodec codec) {
+        if (value == null || codec == null) {
+            bindNullable(statement, index, value);
+        } else {
+            statement.bindBlob(index, codec.encode(value));
+        }
+    }
+
+    private static void bindNullable(SQLiteStatement statement, int index, String value) {
+        if (value == null) {
+            statement.bindNull(index);
+        } else {
+            statement.bindString(index, value);
+        }
     }
 }
@@ -0,0 +1,237 @@
+package com.altf4.figuremortis.exec;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+
+import androidx.annotation.NonNull;
+
+import java.util.Locale;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.altf4.figuremortis.telemetry.TelemetryEventListener;
+
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+
+/**
+ * App-wide executors, one pool per {@link Priority} tier.
+ * <p>
+ * Each tier also has its own OkHttp {@link Dispatcher} backed by the same pool, so network calls
+ * made through {@link #httpClient(Priority)} are scheduled with the tier they belong to. Prefetch
+ * and maintenance threads run at background OS priority and hold off starting new work while
+ * interactive tasks or calls are in flight, so user-visible latency never queues behind
+ * speculative work.
+ */
+public final class AppExecutors {
+
+    // Upper bound on yielding, so a steady stream of interactive work cannot starve a tier forever.
+    private static final long MAX_YIELD_MS = 2000;
+
+    private static volatile AppExecutors instance;
+
+    private final TierExecutor interactive;
+    private final TierExecutor prefetch;
+    private final TierExecutor maintenance;
+
+    private final Dispatcher interactiveDispatcher;
+    private final Dispatcher prefetchDispatcher;
+    private final Dispatcher maintenanceDispatcher;
+
+    // Connection pool, cache, timeouts and telemetry are shared; only the dispatcher differs per tier.
+    private final OkHttpClient baseClient = new OkHttpClient.Builder()
+            .eventListenerFactory(TelemetryEventListener.FACTORY)
+            .build();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    // Lower tiers wait on this while a higher tier is busy; notified whenever a higher tier
+    // finishes a task or its dispatcher goes idle.
+    private final Object tierIdle = new Object();
+
+    public static AppExecutors get() {
+        if (instance == null) {
+            synchronized (AppExecutors.class) {
+                if (instance == null) {
+                    instance = new AppExecutors();
+                }
+            }
+        }
+        return instance;
+    }
+
+    private AppExecutors() {
+        interactive = new TierExecutor(Priority.INTERACTIVE, 4, Process.THREAD_PRIORITY_DEFAULT);
+        prefetch = new TierExecutor(Priority.PREFETCH, 2, Process.THREAD_PRIORITY_BACKGROUND);
+        maintenance = new TierExecutor(Priority.MAINTENANCE, 1,
+                Process.THREAD_PRIORITY_BACKGROUND + Process.THREAD_PRIORITY_LESS_FAVORABLE);
+
+        interactiveDispatcher = new Dispatcher(interactive);
+        prefetchDispatcher = new Dispatcher(prefetch);
+        prefetchDispatcher.setMaxRequests(2);
+        maintenanceDispatcher = new Dispatcher(maintenance);
+        maintenanceDispatcher.setMaxRequests(1);
+        interactiveDispatcher.setIdleCallback(this::signalTierIdle);
+        prefetchDispatcher.setIdleCallback(this::signalTierIdle);
+    }
+
+    /**
+     * Runs a task on the pool for the given tier.
+     *
+     * @return A future that can be used to cancel the task.
+     */
+    public Future<?> execute(Priority priority, Runnable task) {
+        return executorFor(priority).submit(task);
+    }
+
+    /**
+     * Posts a task to the main thread.
+     */
+    public void postToMain(Runnable task) {
+        mainHandler.post(task);
+    }
+
+    /**
+     * Returns an OkHttp client whose asynchronous calls run on the given tier.
+     * Callers may further customise it with {@link OkHttpClient#newBuilder()}.
+     */
+    public OkHttpClient httpClient(Priority priority) {
+        return baseClient.newBuilder()
+                .dispatcher(dispatcherFor(priority))
+                .build();
+    }
+
+    private TierExecutor executorFor(Priority priority) {
+        switch (priority) {
+            case INTERACTIVE:
+                return interactive;
+            case PREFETCH:
+                return prefetch;
+            default:
+                return maintenance;
+        }
+    }
+
+    private Dispatcher dispatcherFor(Priority priority) {
+        switch (priority) {
+            case INTERACTIVE:
+                return interactiveDispatcher;
+            case PREFETCH:
+                return prefetchDispatcher;
+            default:
+                return maintenanceDispatcher;
+        }
+    }
+
+    /**
+     * Returns whether OkHttp still has the call queued or running on any tier, i.e. it has been
+     * enqueued and has not completed yet.
+     */
+    public boolean isInFlight(okhttp3.Call call) {
+        for (Dispatcher dispatcher : new Dispatcher[]{interactiveDispatcher, prefetchDispatcher, maintenanceDispatcher}) {
+            if (dispatcher.runningCalls().contains(call) || dispatcher.queuedCalls().contains(call)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Whether any tier above the given one currently has work running or queued.
+     */
+    private boolean isBusyAbove(Priority priority) {
+        if (interactive.running.get() > 0 || !interactive.getQueue().isEmpty()
+                || interactiveDispatcher.runningCallsCount() > 0) {
+            return true;
+        }
+        return priority == Priority.MAINTENANCE
+                && (prefetch.running.get() > 0 || !prefetch.getQueue().isEmpty()
+                || prefetchDispatcher.runningCallsCount() > 0);
+    }
+
+    private void signalTierIdle() {
+        synchronized (tierIdle) {
+            tierIdle.notifyAll();
+        }
+    }
+
+    /**
+     * Blocks a lower-tier thread while a higher tier is busy, for at most {@link #MAX_YIELD_MS}.
+     * Woken by {@link #signalTierIdle} rather than polling, so it resumes as soon as the higher
+     * tier drains.
+     */
+    private void yieldTo(Priority priority) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(MAX_YIELD_MS);
+        synchronized (tierIdle) {
+            while (isBusyAbove(priority)) {
+                long remainingMs = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remainingMs <= 0) {
+                    return;
+                }
+                tierIdle.wait(remainingMs);
+            }
+        }
+    }
+
+    /**
+     * A pool for one tier. Lower tiers wait in {@link #beforeExecute} while a higher tier is busy.
+     */
+    private final class TierExecutor extends ThreadPoolExecutor {
+        private final Priority priority;
+        // Tasks between beforeExecute and afterExecute. Unlike getActiveCount(), this has already
+        // dropped when afterExecute signals the lower tiers.
+        final AtomicInteger running = new AtomicInteger();
+
+        TierExecutor(Priority priority, int threads, int osPriority) {
+            super(threads, threads, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                    new TierThreadFactory(priority, osPriority));
+            this.priority = priority;
+            allowCoreThreadTimeOut(true);
+        }
+
+        @Override
+        protected void beforeExecute(Thread t, Runnable r) {
+            super.beforeExecute(t, r);
+            if (priority != Priority.INTERACTIVE) {
+                try {
+                    yieldTo(priority);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            running.incrementAndGet();
+        }
+
+        @Override
+        protected void afterExecute(Runnable r, Throwable t) {
+            super.afterExecute(r, t);
+            running.decrementAndGet();
+            if (priority != Priority.MAINTENANCE) {
+                signalTierIdle();
+            }
+        }
+    }
+
+    private static final class TierThreadFactory implements ThreadFactory {
+        private final Priority priority;
+        private final int osPriority;
+        private final AtomicInteger count = new AtomicInteger();
+
+        TierThreadFactory(Priority priority, int osPriority) {
+            this.priority = priority;
+            this.osPriority = osPriority;
+        }
+
+        @Override
+        public Thread newThread(@NonNull Runnable r) {
+            Runnable withPriority = () -> {
+                Process.setThreadPriority(osPriority);
+                r.run();
+            };
+            return new Thread(withPriority, "fm-" + priority.name().toLowerCase(Locale.ROOT) + "-" + count.incrementAndGet());
+        }
+    }
+}
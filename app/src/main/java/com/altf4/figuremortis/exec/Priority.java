@@ -0,0 +1,13 @@
+package com.altf4.figuremortis.exec;
+
+/**
+ * Scheduling tiers for background work. Lower tiers yield to higher ones.
+ */
+public enum Priority {
+    /** Work the user is waiting on right now, e.g. loading the screen they just opened. */
+    INTERACTIVE,
+    /** Speculative work that may make a later screen faster, e.g. prefetching a biography. */
+    PREFETCH,
+    /** Housekeeping that nobody is waiting on, e.g. refreshes, exports and cleanup. */
+    MAINTENANCE
+}
@@ -0,0 +1,135 @@
+package com.altf4.figuremortis.exec;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleEventObserver;
+import androidx.lifecycle.LifecycleOwner;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Ties background tasks and network calls to a {@link LifecycleOwner}. When the owner is destroyed,
+ * every tracked call and task is cancelled and pending main-thread callbacks are dropped, so no
+ * work keeps running for, or touches, a screen that is gone.
+ */
+public final class TaskScope implements LifecycleEventObserver {
+
+    private final Set<Object> handles = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    private volatile boolean cancelled;
+
+    private TaskScope() {
+    }
+
+    /**
+     * Creates a scope that is cancelled when the owner reaches {@code ON_DESTROY}.
+     */
+    public static TaskScope of(LifecycleOwner owner) {
+        TaskScope scope = new TaskScope();
+        owner.getLifecycle().addObserver(scope);
+        return scope;
+    }
+
+    public boolean isActive() {
+        return !cancelled;
+    }
+
+    /**
+     * Runs a task on the given tier; it is interrupted if the scope is cancelled first.
+     */
+    public Future<?> execute(Priority priority, Runnable task) {
+        FutureTask<Void> future = new FutureTask<Void>(task, null) {
+            @Override
+            protected void done() {
+                handles.remove(this);
+            }
+        };
+        handles.add(future);
+        if (cancelled) {
+            future.cancel(true);
+        } else {
+            AppExecutors.get().execute(priority, future);
+        }
+        return future;
+    }
+
+    /**
+     * Posts a task to the main thread; it is skipped if the scope has been cancelled by then.
+     */
+    public void postToMain(Runnable task) {
+        AppExecutors.get().postToMain(() -> {
+            if (!cancelled) {
+                task.run();
+            }
+        });
+    }
+
+    /**
+     * Cancels the enqueued OkHttp call together with this scope. OkHttp has no completion hook for a
+     * call enqueued elsewhere, so calls that have finished since are dropped on each new track.
+     */
+    public okhttp3.Call track(okhttp3.Call call) {
+        for (Object handle : handles) {
+            if (handle instanceof okhttp3.Call && !AppExecutors.get().isInFlight((okhttp3.Call) handle)) {
+                handles.remove(handle);
+            }
+        }
+        handles.add(call);
+        if (cancelled) {
+            call.cancel();
+        }
+        return call;
+    }
+
+    /**
+     * Enqueues the Retrofit call, cancelling it together with this scope. The call is forgotten
+     * as soon as it completes.
+     */
+    public <T> void enqueue(retrofit2.Call<T> call, retrofit2.Callback<T> callback) {
+        handles.add(call);
+        if (cancelled) {
+            call.cancel();
+        }
+        call.enqueue(new retrofit2.Callback<T>() {
+            @Override
+            public void onResponse(@NonNull retrofit2.Call<T> c, @NonNull retrofit2.Response<T> response) {
+                handles.remove(call);
+                callback.onResponse(c, response);
+            }
+
+            @Override
+            public void onFailure(@NonNull retrofit2.Call<T> c, @NonNull Throwable t) {
+                handles.remove(call);
+                callback.onFailure(c, t);
+            }
+        });
+    }
+
+    /**
+     * Cancels every tracked call and task. Safe to call more than once.
+     */
+    public void cancel() {
+        cancelled = true;
+        for (Object handle : handles) {
+            if (handle instanceof okhttp3.Call) {
+                ((okhttp3.Call) handle).cancel();
+            } else if (handle instanceof retrofit2.Call) {
+                ((retrofit2.Call<?>) handle).cancel();
+            } else if (handle instanceof Future) {
+                ((Future<?>) handle).cancel(true);
+            }
+        }
+        handles.clear();
+    }
+
+    @Override
+    public void onStateChanged(@NonNull LifecycleOwner source, @NonNull Lifecycle.Event event) {
+        if (event == Lifecycle.Event.ON_DESTROY) {
+            cancel();
+            source.getLifecycle().removeObserver(this);
+        }
+    }
+}
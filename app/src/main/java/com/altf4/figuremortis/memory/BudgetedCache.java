@@ -0,0 +1,45 @@
+package com.altf4.figuremortis.memory;
+
+import android.util.LruCache;
+
+import androidx.annotation.NonNull;
+
+/**
+ * An {@link LruCache} measured in estimated bytes whose capacity is set by the
+ * {@link MemoryGovernor}. Create one with {@link MemoryGovernor#register}.
+ */
+public final class BudgetedCache<K, V> extends LruCache<K, V> {
+
+    /**
+     * Estimates how many bytes an entry keeps alive. Must return the same value for the same entry
+     * for as long as it is cached.
+     */
+    public interface Weigher<K, V> {
+        int weigh(@NonNull K key, @NonNull V value);
+    }
+
+    private final String name;
+    private final int share;
+    private final Weigher<K, V> weigher;
+
+    BudgetedCache(String name, int share, int maxBytes, Weigher<K, V> weigher) {
+        super(Math.max(1, maxBytes));
+        this.name = name;
+        this.share = share;
+        this.weigher = weigher;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    int getShare() {
+        return share;
+    }
+
+    @Override
+    protected int sizeOf(@NonNull K key, @NonNull V value) {
+        // LruCache rejects empty entries; count them as a single byte.
+        return Math.max(1, weigher.weigh(key, value));
+    }
+}
@@ -0,0 +1,209 @@
+package com.altf4.figuremortis.memory;
+
+import android.app.ActivityManager;
+import android.app.Application;
+import android.content.ComponentCallbacks2;
+import android.content.res.Configuration;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Sizes every in-app cache from one memory budget and trims them together under memory pressure.
+ * <p>
+ * The budget is a fraction of the heap the device gives the app ({@link ActivityManager#getMemoryClass()}),
+ * smaller on low-RAM devices. Caches register with a share of it and are measured in estimated
+ * bytes through a {@link BudgetedCache.Weigher}. On {@link #onTrimMemory} each cache is trimmed to
+ * the same fraction of its current size, so no single cache absorbs all the pressure; the budgets
+ * themselves stay put so the caches can refill once the app is back in front.
+ */
+public final class MemoryGovernor implements ComponentCallbacks2 {
+
+    private static final long MB = 1024 * 1024;
+    // Caches may use an eighth of the heap, a sixteenth on low-RAM devices.
+    private static final int HEAP_DIVISOR = 8;
+    private static final int LOW_RAM_HEAP_DIVISOR = 16;
+    // Used until install() has read the device's memory class.
+    private static final long DEFAULT_BUDGET = 4 * MB;
+
+    private static volatile MemoryGovernor instance;
+
+    private final List<BudgetedCache<?, ?>> caches = new CopyOnWriteArrayList<>();
+    private volatile long budgetBytes = DEFAULT_BUDGET;
+    private volatile boolean lowRamDevice;
+
+    public static MemoryGovernor get() {
+        if (instance == null) {
+            synchronized (MemoryGovernor.class) {
+                if (instance == null) {
+                    instance = new MemoryGovernor();
+                }
+            }
+        }
+        return instance;
+    }
+
+    private MemoryGovernor() {
+    }
+
+    /**
+     * Reads the device's memory class, resizes the registered caches to match and starts listening
+     * for trim callbacks. Called once from {@code Application.onCreate}.
+     */
+    public void install(Application application) {
+        ActivityManager activityManager = (ActivityManager) application.getSystemService(Application.ACTIVITY_SERVICE);
+        if (activityManager != null) {
+            lowRamDevice = activityManager.isLowRamDevice();
+            int divisor = lowRamDevice ? LOW_RAM_HEAP_DIVISOR : HEAP_DIVISOR;
+            budgetBytes = activityManager.getMemoryClass() * MB / divisor;
+        }
+        rebalance();
+        application.registerComponentCallbacks(this);
+    }
+
+    /**
+     * Creates a cache that gets {@code share} parts of the budget, relative to the shares of the
+     * other registered caches.
+     *
+     * @param name    Shown in {@link #summary()}.
+     * @param share   Relative weight of this cache's budget, e.g. 1 or 3.
+     * @param weigher Estimates the bytes an entry keeps alive.
+     */
+    public <K, V> BudgetedCache<K, V> register(String name, int share, BudgetedCache.Weigher<K, V> weigher) {
+        BudgetedCache<K, V> cache;
+        synchronized (this) {
+            cache = new BudgetedCache<>(name, share, budgetFor(share, totalShares() + share), weigher);
+            caches.add(cache);
+        }
+        rebalance();
+        return cache;
+    }
+
+    /**
+     * @return The total number of bytes all caches may hold.
+     */
+    public long getBudgetBytes() {
+        return budgetBytes;
+    }
+
+    public boolean isLowRamDevice() {
+        return lowRamDevice;
+    }
+
+    /**
+     * @return The current size and capacity of every registered cache.
+     */
+    public List<Occupancy> occupancy() {
+        List<Occupancy> result = new ArrayList<>(caches.size());
+        for (BudgetedCache<?, ?> cache : caches) {
+            result.add(new Occupancy(cache.getName(), cache.size(), cache.maxSize()));
+        }
+        return result;
+    }
+
+    /**
+     * @return A short, human-readable occupancy report for the debug overlay.
+     */
+    public String summary() {
+        StringBuilder text = new StringBuilder();
+        long used = 0;
+        for (Occupancy occupancy : occupancy()) {
+            used += occupancy.sizeBytes;
+            text.append(String.format(Locale.US, "mem %-8s %5d / %5d KB%n",
+                    occupancy.name, occupancy.sizeBytes / 1024, occupancy.maxBytes / 1024));
+        }
+        text.append(String.format(Locale.US, "mem total    %5d / %5d KB%s",
+                used / 1024, budgetBytes / 1024, lowRamDevice ? " (low RAM)" : ""));
+        return text.toString();
+    }
+
+    /**
+     * Trims every cache to the given fraction of its current size.
+     */
+    public void trim(float keepFraction) {
+        for (BudgetedCache<?, ?> cache : caches) {
+            if (keepFraction <= 0) {
+                cache.evictAll();
+            } else {
+                cache.trimToSize((int) (cache.size() * keepFraction));
+            }
+        }
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        trim(keepFractionFor(level));
+    }
+
+    @Override
+    public void onLowMemory() {
+        trim(0);
+    }
+
+    @Override
+    public void onConfigurationChanged(@NonNull Configuration newConfig) {
+    }
+
+    /**
+     * Maps a trim level to the fraction of each cache worth keeping. Background levels grow
+     * harsher the closer the process is to being killed; running levels mirror them while the app
+     * is in front.
+     */
+    static float keepFractionFor(int level) {
+        if (level >= TRIM_MEMORY_COMPLETE) {
+            return 0f;
+        } else if (level >= TRIM_MEMORY_MODERATE) {
+            return 0.25f;
+        } else if (level >= TRIM_MEMORY_BACKGROUND) {
+            return 0.5f;
+        } else if (level >= TRIM_MEMORY_UI_HIDDEN) {
+            return 0.75f;
+        } else if (level >= TRIM_MEMORY_RUNNING_CRITICAL) {
+            return 0.25f;
+        } else if (level >= TRIM_MEMORY_RUNNING_LOW) {
+            return 0.5f;
+        } else if (level >= TRIM_MEMORY_RUNNING_MODERATE) {
+            return 0.75f;
+        }
+        return 1f;
+    }
+
+    private synchronized void rebalance() {
+        int totalShares = totalShares();
+        for (BudgetedCache<?, ?> cache : caches) {
+            // Shrinking evicts least recently used entries right away.
+            cache.resize(budgetFor(cache.getShare(), totalShares));
+        }
+    }
+
+    private int totalShares() {
+        int total = 0;
+        for (BudgetedCache<?, ?> cache : caches) {
+            total += cache.getShare();
+        }
+        return total;
+    }
+
+    private int budgetFor(int share, int totalShares) {
+        return (int) Math.max(1, Math.min(Integer.MAX_VALUE, budgetBytes * share / Math.max(1, totalShares)));
+    }
+
+    /**
+     * A snapshot of one cache's size and capacity.
+     */
+    public static final class Occupancy {
+        public final String name;
+        public final long sizeBytes;
+        public final long maxBytes;
+
+        Occupancy(String name, long sizeBytes, long maxBytes) {
+            this.name = name;
+            this.sizeBytes = sizeBytes;
+            this.maxBytes = maxBytes;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.altf4.figuremortis.service;
+
+import androidx.annotation.VisibleForTesting;
+
+import com.altf4.figuremortis.BuildConfig;
+
+/**
+ * Base URLs of the two services the app talks to. They default to the values in BuildConfig and
+ * can be pointed at a local stand-in server by tests before a screen is launched.
+ */
+public final class ApiEndpoints {
+
+    private static volatile String historyBaseUrl = BuildConfig.HISTORY_BASE_URL;
+    private static volatile String geminiApiRoot = BuildConfig.GEMINI_API_ROOT;
+
+    private ApiEndpoints() {
+    }
+
+    /**
+     * @return The muffinlabs history API base URL, ending with '/'.
+     */
+    public static String historyBaseUrl() {
+        return historyBaseUrl;
+    }
+
+    /**
+     * @return The Gemini REST root including the version segment, ending with '/'.
+     */
+    public static String geminiApiRoot() {
+        return geminiApiRoot;
+    }
+
+    @VisibleForTesting
+    public static void override(String historyBaseUrl, String geminiApiRoot) {
+        ApiEndpoints.historyBaseUrl = historyBaseUrl;
+        ApiEndpoints.geminiApiRoot = geminiApiRoot;
+    }
+
+    @VisibleForTesting
+    public static void reset() {
+        override(BuildConfig.HISTORY_BASE_URL, BuildConfig.GEMINI_API_ROOT);
+    }
+}
@@ -4,16 +4,19 @@ import android.util.Log;
 
 import androidx.annotation.NonNull;
 
+import com.altf4.figuremortis.exec.AppExecutors;
+import com.altf4.figuremortis.exec.Priority;
+import com.altf4.figuremortis.telemetry.Stage;
+import com.altf4.figuremortis.telemetry.Telemetry;
 import com.google.gson.Gson;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
-import com.google.gson.annotations.SerializedName;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 import okhttp3.Call;
@@ -40,7 +43,13 @@ public class GeminiService {
     private final String geminiApiKey;
     private static final String MODEL_ID = "gemini-2.0-flash";
     private static final String API_METHOD = "generateContent";
-    private final String BASE_URL = "https://generativelanguage.googleapis.com/v1beta/models/" + MODEL_ID;
+    private static final String BATCH_API_METHOD = "batchGenerateContent";
+    private static final MediaType JSON = MediaType.parse("application/json; charset=utf-8");
+
+    // Root of the REST API (ends with '/'); the model and batch endpoints are resolved against it,
+    // so both can point at a local mock server.
+    private final String apiRoot;
+    private final String BASE_URL;
 
     private final OkHttpClient httpClient;
     private final Gson gson;
@@ -62,9 +71,84 @@ public class GeminiService {
         void onFailure(Exception e);
     }
 
+    /**
+     * Callback interface for a multi-figure request. Results are reported per figure so that one
+     * malformed entry does not discard the rest of the batch.
+     */
+    public interface BatchCallback {
+        /**
+         * Called once the batch has been received and split into per-figure results.
+         * @param results One result per query, in the same order as the queries were given. Each
+         *                result was matched to its query by the key the model echoed, never by
+         *                its position in the answer.
+         */
+        void onComplete(List<BatchResult> results);
+
+        /**
+         * Called if the whole batch failed (network error, HTTP error, unreadable body).
+         * @param e The exception that occurred.
+         */
+        void onFailure(Exception e);
+    }
+
+    /**
+     * Callback interface for jobs submitted to the asynchronous Gemini Batch API.
+     */
+    public interface BatchJobCallback {
+        /**
+         * Called when the job has been accepted by the server.
+         * @param jobName The server-assigned job name, e.g. "batches/123", used for polling.
+         */
+        void onSubmitted(String jobName);
+
+        /**
+         * Called when a poll finds the job still queued or running.
+         * @param state The raw job state reported by the server.
+         */
+        void onPending(String state);
+
+        /**
+         * Called when the job has finished and its inlined responses were parsed.
+         * @param results One result per query, in the same order as the queries were submitted.
+         *                Each was matched to its query by the request key echoed in the
+         *                response metadata, never by its position.
+         */
+        void onComplete(List<BatchResult> results);
+
+        /**
+         * Called if submitting or polling the job failed, or the job itself failed.
+         * @param e The exception that occurred.
+         */
+        void onFailure(Exception e);
+    }
+
     public GeminiService(String apiKey) {
+        this(apiKey, ApiEndpoints.geminiApiRoot());
+    }
+
+    /**
+     * Creates a service against a custom API root, e.g. a local mock server in tests.
+     *
+     * @param apiKey  The Gemini API key.
+     * @param apiRoot The REST root including the version segment, e.g. "http://localhost:8080/v1beta/".
+     */
+    public GeminiService(String apiKey, String apiRoot) {
+        this(apiKey, apiRoot, Priority.INTERACTIVE);
+    }
+
+    /**
+     * Creates a service whose calls are scheduled on the given tier, e.g. {@link Priority#PREFETCH}
+     * for speculative requests that must not delay what the user is looking at.
+     *
+     * @param apiKey   The Gemini API key.
+     * @param apiRoot  The REST root including the version segment.
+     * @param priority The execution tier for this service's network calls.
+     */
+    public GeminiService(String apiKey, String apiRoot, Priority priority) {
         this.geminiApiKey = apiKey;
-        this.httpClient = new OkHttpClient.Builder()
+        this.apiRoot = apiRoot.endsWith("/") ? apiRoot : apiRoot + "/";
+        this.BASE_URL = this.apiRoot + "models/" + MODEL_ID;
+        this.httpClient = AppExecutors.get().httpClient(priority).newBuilder()
                 .connectTimeout(30, TimeUnit.SECONDS)
                 .readTimeout(60, TimeUnit.SECONDS) // Standard timeout is sufficient
                 .writeTimeout(60, TimeUnit.SECONDS)
@@ -77,23 +161,25 @@ public class GeminiService {
      *
      * @param userQuery The input text from the user.
      * @param callback  The callback to handle the final result or an error.
+     * @return The in-flight call, which the caller may cancel.
      */
-    public void generateGroundedResponse(String userQuery, GeminiCallback callback) {
+    public Call generateGroundedResponse(String userQuery, GeminiCallback callback) {
         HttpUrl url = HttpUrl.parse(BASE_URL + ":" + API_METHOD)
                 .newBuilder()
                 .addQueryParameter("key", geminiApiKey)
                 .build();
 
-        String requestJson = buildRequestJson(userQuery);
+        String requestJson = gson.toJson(GeminiPayloads.buildRequest(userQuery));
 // Corrected order
-        RequestBody requestBody = RequestBody.create(MediaType.parse("application/json; charset=utf-8"), requestJson);
+        RequestBody requestBody = RequestBody.create(JSON, requestJson);
         Request request = new Request.Builder()
                 .url(url)
                 .post(requestBody)
                 .build();
 
         // Execute the call asynchronously
-        httpClient.newCall(request).enqueue(new Callback() {
+        Call call = httpClient.newCall(request);
+        call.enqueue(new Callback() {
             @Override
             public void onFailure(@NonNull Call call, @NonNull IOException e) {
                 Log.e(TAG, "API call failed", e);
@@ -111,7 +197,13 @@ public class GeminiService {
                     }
 
                     // Handle the complete, non-streamed response
-                    handleFinalResponse(responseBody.string(), callback);
+                    String body = responseBody.string();
+                    if (call.isCanceled()) {
+                        // Nobody is waiting for this any more; skip the parse.
+                        callback.onFailure(new IOException("Canceled"));
+                        return;
+                    }
+                    handleFinalResponse(body, callback);
 
                 } catch (Exception e) {
                     Log.e(TAG, "Error processing API response", e);
@@ -119,6 +211,7 @@ public class GeminiService {
                 }
             }
         });
+        return call;
     }
 
     /**
@@ -129,18 +222,10 @@ public class GeminiService {
      */
     private void handleFinalResponse(String responseBodyString, GeminiCallback callback) {
         try {
-            // Extract the generated text from the main response object
-            String generatedJsonText = extractTextFromResponse(responseBodyString);
-            if (generatedJsonText == null) {
-                callback.onFailure(new Exception("Could not extract generated text from API response."));
-                return;
-            }
-
-            // The model output might include markdown backticks for the JSON block, remove them.
-            String cleanJson = generatedJsonText.replace("```json", "").replace("```", "").trim();
-
-            // Parse the cleaned JSON string into our final response object
-            GroundedResponse finalResponse = gson.fromJson(cleanJson, GroundedResponse.class);
+            // Extract the generated text and parse it into our final response object
+            long parseStart = Telemetry.start();
+            GroundedResponse finalResponse = GeminiPayloads.parseGroundedResponse(responseBodyString);
+            Telemetry.end(Stage.PARSE, parseStart);
             callback.onComplete(finalResponse);
 
         } catch (Exception e) {
@@ -150,132 +235,320 @@ public class GeminiService {
     }
 
     /**
-     * Safely extracts the generated text from the full API response JSON.
-     * @param responseBodyString The complete JSON response string from the API.
-     * @return The text content, or null if not found.
+     * Generates grounded responses for several figures with a single generateContent call, so the
+     * system instruction and few-shot example are sent once instead of once per figure.
+     *
+     * @param userQueries One query per figure, in the same format as {@link #generateGroundedResponse}.
+     * @param callback    The callback to handle the per-figure results or a whole-batch error.
+     * @return The in-flight call, which the caller may cancel.
      */
-    private String extractTextFromResponse(String responseBodyString) {
-        try {
-// Correct: Creating a new instance of JsonParser first
-            JsonObject responseJson = new JsonParser().parse(responseBodyString).getAsJsonObject();
-            JsonArray candidates = responseJson.getAsJsonArray("candidates");
-
-            // FIX: Replaced !candidates.isEmpty() with candidates.size() > 0 for broader compatibility
-            if (candidates != null && candidates.size() > 0) {
-                JsonObject candidate = candidates.get(0).getAsJsonObject();
-                JsonObject content = candidate.getAsJsonObject("content");
-                JsonArray parts = content.getAsJsonArray("parts");
-
-                // FIX: Replaced !parts.isEmpty() with parts.size() > 0
-                if (parts != null && parts.size() > 0) {
-                    JsonObject part = parts.get(0).getAsJsonObject();
-                    // Ensure the 'text' field exists before trying to access it
-                    if (part.has("text")) {
-                        return part.get("text").getAsString();
+    public Call generateGroundedResponses(List<String> userQueries, BatchCallback callback) {
+        HttpUrl url = HttpUrl.parse(BASE_URL + ":" + API_METHOD)
+                .newBuilder()
+                .addQueryParameter("key", geminiApiKey)
+                .build();
+
+        RequestBody requestBody = RequestBody.create(JSON, gson.toJson(GeminiPayloads.buildBatchRequest(userQueries)));
+        Request request = new Request.Builder()
+                .url(url)
+                .post(requestBody)
+                .build();
+
+        Call call = httpClient.newCall(request);
+        call.enqueue(new Callback() {
+            @Override
+            public void onFailure(@NonNull Call call, @NonNull IOException e) {
+                Log.e(TAG, "Batch API call failed", e);
+                callback.onFailure(e);
+            }
+
+            @Override
+            public void onResponse(@NonNull Call call, @NonNull Response response) {
+                try (ResponseBody responseBody = response.body()) {
+                    if (!response.isSuccessful() || responseBody == null) {
+                        String errorBody = responseBody != null ? responseBody.string() : "Unknown error";
+                        Log.e(TAG, "Batch API call unsuccessful: " + response.code() + " " + errorBody);
+                        callback.onFailure(new IOException("API call failed with code: " + response.code()));
+                        return;
+                    }
+
+                    String body = responseBody.string();
+                    if (call.isCanceled()) {
+                        // Nobody is waiting for this any more; skip the parse.
+                        callback.onFailure(new IOException("Canceled"));
+                        return;
                     }
+                    String generatedText = GeminiPayloads.extractText(body);
+                    if (generatedText == null) {
+                        callback.onFailure(new Exception("Could not extract generated text from API response."));
+                        return;
+                    }
+                    long parseStart = Telemetry.start();
+                    List<BatchResult> results = splitBatchResults(userQueries, generatedText);
+                    Telemetry.end(Stage.PARSE, parseStart);
+                    callback.onComplete(results);
+
+                } catch (Exception e) {
+                    Log.e(TAG, "Error processing batch API response", e);
+                    callback.onFailure(e);
                 }
             }
+        });
+        return call;
+    }
+
+    /**
+     * Splits the JSON array returned for a multi-figure prompt into one result per query, matched
+     * by the key each entry echoes. A query no entry answers, or that two entries claim, fails on
+     * its own; the other results are never shifted to fill the gap.
+     */
+    private List<BatchResult> splitBatchResults(List<String> userQueries, String generatedText) {
+        JsonObject[] items = GeminiPayloads.matchBatchItems(generatedText, userQueries.size());
+        List<BatchResult> results = new ArrayList<>(userQueries.size());
+        for (int i = 0; i < userQueries.size(); i++) {
+            String query = userQueries.get(i);
+            if (items[i] == null) {
+                results.add(BatchResult.failure(query, new Exception("No response returned for this figure.")));
+                continue;
+            }
+            results.add(parseBatchItem(query, items[i]));
+        }
+        return results;
+    }
+
+    private BatchResult parseBatchItem(String query, JsonElement item) {
+        try {
+            GroundedResponse response = gson.fromJson(item, GroundedResponse.class);
+            if (response == null || response.name == null || response.details == null) {
+                return BatchResult.failure(query, new Exception("Incomplete response for this figure."));
+            }
+            return BatchResult.success(query, response);
         } catch (Exception e) {
-            Log.e(TAG, "Error navigating response JSON to find text", e);
+            return BatchResult.failure(query, e);
         }
-        return null;
     }
 
     /**
-     * Builds the JSON payload for the Gemini API request.
+     * Submits a job to the asynchronous Gemini Batch API. Each figure is sent as its own inlined
+     * request, keyed by its index, so the server can schedule them independently; use this for
+     * bulk work that does not need an answer right away and poll with {@link #fetchBatchJob}.
      *
-     * @param userInput The user's query to be inserted into the prompt.
-     * @return A JSON string representing the request body.
+     * @param userQueries One query per figure.
+     * @param displayName A human-readable name for the job.
+     * @param callback    Receives the job name on success.
+     * @return The in-flight call, which the caller may cancel.
      */
-    private String buildRequestJson(String userInput) {
-        // --- System Instruction ---
-        JsonObject systemInstructionText = new JsonObject();
-        systemInstructionText.addProperty("text", "You are an expert historian who is capable of finding details about a historical figure from their name and the date of their death. You must use grounding search tool to verify the information. Always return the response with this JSON format:\n\n{\n\"name\" : \"Full name of the historical figure\",\n\"birth\" : \"Birth date if there's any information\",\n\"details\": \"Detailed 3-paragraph biography about the person (clean format with source annotation)\",\n\"sources\": [{\"source number\": \"Links of the information sources\"}]\n}");
-        JsonArray systemInstructionParts = new JsonArray();
-        systemInstructionParts.add(systemInstructionText);
-        JsonObject systemInstruction = new JsonObject();
-        systemInstruction.add("parts", systemInstructionParts);
-
-        // --- Few-Shot Example (User) ---
-        JsonObject userShotText = new JsonObject();
-        userShotText.addProperty("text", "Who was John III, pope of the Catholic Church that was deceased in 574");
-        JsonArray userShotParts = new JsonArray();
-        userShotParts.add(userShotText);
-        JsonObject userShot = new JsonObject();
-        userShot.addProperty("role", "user");
-        userShot.add("parts", userShotParts);
-
-        // --- Few-Shot Example (Model) ---
-        JsonObject modelShotText = new JsonObject();
-        modelShotText.addProperty("text", "```json\n{\n\"name\": \"John III\",\n\"birth\": \"Around 530 AD [3]\",\n\"details\": \"John III, born Catelinus in Rome, was the Pope of the Catholic Church from July 17, 561, to his death on July 13, 574 [1, 3, 5]. Born to a distinguished family, his father, Anastasius, held the title of illustris [1, 3]. His papacy occurred during the Lombard invasion of Italy, a period of significant upheaval, resulting in the destruction of many records from his reign [1, 2, 3].\\n\\nDespite the challenges of his time, John III is remembered as a magnanimous pontiff who was dedicated to the welfare of the people [1]. In one notable act, he intervened on behalf of two bishops, Salonius of Embrun and Sagittarius of Gap, who had been condemned at a synod in Lyons. King Guntram of Burgundy believed they were unjustly condemned and appealed to John, who decided they should be restored to their sees [1, 5].\\n\\nDuring the Lombard invasion, John III sought assistance from Narses, the governor of Naples, to defend Rome [2, 3]. He even retreated to the catacombs of Praetextatus for several months, where he continued to perform ordinations [1]. After Narses' death, he returned to the Lateran Palace and, with a newfound appreciation for the catacombs, ordered their repair and ensured they received the necessities for Mass [1]. He was buried in St. Peter's [1].\",\n\"sources\": [\n  {\n    \"1\": \"[https://example.com/source1](https://example.com/source1)\"\n  },\n  {\n    \"2\": \"[https://example.com/source2](https://example.com/source2)\"\n  },\n  {\n    \"3\": \"[https://example.com/source3](https://example.com/source3)\"\n  },\n  {\n    \"4\": \"[https://example.com/source4](https://example.com/source4)\"\n  },\n  {\n    \"5\": \"[https://example.com/source5](https://example.com/source5)\"\n  }\n]\n}```");
-        JsonArray modelShotParts = new JsonArray();
-        modelShotParts.add(modelShotText);
-        JsonObject modelShot = new JsonObject();
-        modelShot.addProperty("role", "model");
-        modelShot.add("parts", modelShotParts);
-
-        // --- Actual User Query ---
-        JsonObject userMessageText = new JsonObject();
-        userMessageText.addProperty("text", userInput);
-        JsonArray userMessageParts = new JsonArray();
-        userMessageParts.add(userMessageText);
-        JsonObject userMessage = new JsonObject();
-        userMessage.addProperty("role", "user");
-        userMessage.add("parts", userMessageParts);
-
-        // --- Contents Array ---
-        JsonArray contents = new JsonArray();
-        contents.add(userShot);
-        contents.add(modelShot);
-        contents.add(userMessage);
-
-        // --- Tools ---
-        JsonObject googleSearchTool = new JsonObject();
-        googleSearchTool.add("google_search", new JsonObject()); // Empty object enables the tool
-        JsonArray tools = new JsonArray();
-        tools.add(googleSearchTool);
-
-        // --- Generation Config ---
-        JsonObject generationConfig = new JsonObject();
-        generationConfig.addProperty("temperature", 0.2);
-//        generationConfig.addProperty("responseMimeType", "application/json");
-
-        // --- Main Request Body ---
-        JsonObject requestBody = new JsonObject();
-        requestBody.add("systemInstruction", systemInstruction);
-        requestBody.add("contents", contents);
-        requestBody.add("tools", tools);
-        requestBody.add("generationConfig", generationConfig);
-
-        return gson.toJson(requestBody);
+    public Call submitBatchJob(List<String> userQueries, String displayName, BatchJobCallback callback) {
+        HttpUrl url = HttpUrl.parse(BASE_URL + ":" + BATCH_API_METHOD)
+                .newBuilder()
+                .addQueryParameter("key", geminiApiKey)
+                .build();
+
+        JsonArray inlinedRequests = new JsonArray();
+        for (int i = 0; i < userQueries.size(); i++) {
+            JsonObject metadata = new JsonObject();
+            metadata.addProperty(GeminiPayloads.BATCH_KEY, String.valueOf(i));
+            JsonObject inlined = new JsonObject();
+            inlined.add("request", GeminiPayloads.buildRequest(userQueries.get(i)));
+            inlined.add("metadata", metadata);
+            inlinedRequests.add(inlined);
+        }
+        JsonObject requests = new JsonObject();
+        requests.add("requests", inlinedRequests);
+        JsonObject inputConfig = new JsonObject();
+        inputConfig.add("requests", requests);
+        JsonObject batch = new JsonObject();
+        batch.addProperty("display_name", displayName);
+        batch.add("input_config", inputConfig);
+        JsonObject body = new JsonObject();
+        body.add("batch", batch);
+
+        Request request = new Request.Builder()
+                .url(url)
+                .post(RequestBody.create(JSON, gson.toJson(body)))
+                .build();
+
+        Call call = httpClient.newCall(request);
+        call.enqueue(new Callback() {
+            @Override
+            public void onFailure(@NonNull Call call, @NonNull IOException e) {
+                Log.e(TAG, "Batch job submission failed", e);
+                callback.onFailure(e);
+            }
+
+            @Override
+            public void onResponse(@NonNull Call call, @NonNull Response response) {
+                try (ResponseBody responseBody = response.body()) {
+                    if (!response.isSuccessful() || responseBody == null) {
+                        callback.onFailure(new IOException("Batch job submission failed with code: " + response.code()));
+                        return;
+                    }
+                    JsonObject operation = new JsonParser().parse(responseBody.string()).getAsJsonObject();
+                    if (!operation.has("name")) {
+                        callback.onFailure(new Exception("Batch job submission returned no job name."));
+                        return;
+                    }
+                    callback.onSubmitted(operation.get("name").getAsString());
+                } catch (Exception e) {
+                    Log.e(TAG, "Error processing batch job submission", e);
+                    callback.onFailure(e);
+                }
+            }
+        });
+        return call;
     }
 
     /**
-     * Data class to hold the final parsed JSON response from the Gemini API.
+     * Polls a job previously created with {@link #submitBatchJob}. Reports {@code onPending} while
+     * the job is still running and {@code onComplete} with per-figure results once it has finished.
+     *
+     * @param jobName     The job name passed to {@code onSubmitted}.
+     * @param userQueries The queries the job was submitted with, in the same order.
+     * @param callback    The callback to notify.
+     * @return The in-flight call, which the caller may cancel.
      */
-    public static class GroundedResponse {
-        @SerializedName("name")
-        public String name;
-
-        @SerializedName("birth")
-        public String birth;
-
-        @SerializedName("details")
-        public String details;
-
-        // e.g., [{"1": "url1"}, {"2": "url2"}]
-        @SerializedName("sources")
-        public List<Map<String, String>> sources;
-
-        @NonNull
-        @Override
-        public String toString() {
-            return "GroundedResponse{" +
-                    "name='" + name + '\'' +
-                    ", birth='" + birth + '\'' +
-                    ", details='" + details + '\'' +
-                    ", sources=" + sources +
-                    '}';
+    public Call fetchBatchJob(String jobName, List<String> userQueries, BatchJobCallback callback) {
+        HttpUrl url = HttpUrl.parse(apiRoot + jobName)
+                .newBuilder()
+                .addQueryParameter("key", geminiApiKey)
+                .build();
+        Request request = new Request.Builder().url(url).get().build();
+
+        Call call = httpClient.newCall(request);
+        call.enqueue(new Callback() {
+            @Override
+            public void onFailure(@NonNull Call call, @NonNull IOException e) {
+                Log.e(TAG, "Batch job poll failed", e);
+                callback.onFailure(e);
+            }
+
+            @Override
+            public void onResponse(@NonNull Call call, @NonNull Response response) {
+                try (ResponseBody responseBody = response.body()) {
+                    if (!response.isSuccessful() || responseBody == null) {
+                        callback.onFailure(new IOException("Batch job poll failed with code: " + response.code()));
+                        return;
+                    }
+                    handleBatchJob(new JsonParser().parse(responseBody.string()).getAsJsonObject(), userQueries, callback);
+                } catch (Exception e) {
+                    Log.e(TAG, "Error processing batch job status", e);
+                    callback.onFailure(e);
+                }
+            }
+        });
+        return call;
+    }
+
+    private void handleBatchJob(JsonObject operation, List<String> userQueries, BatchJobCallback callback) {
+        JsonObject metadata = operation.has("metadata") ? operation.getAsJsonObject("metadata") : operation;
+        String state = metadata.has("state") ? metadata.get("state").getAsString() : "BATCH_STATE_UNSPECIFIED";
+
+        boolean done = operation.has("done") && operation.get("done").getAsBoolean();
+        if (!done && !"BATCH_STATE_SUCCEEDED".equals(state)) {
+            if ("BATCH_STATE_FAILED".equals(state) || "BATCH_STATE_CANCELLED".equals(state)
+                    || "BATCH_STATE_EXPIRED".equals(state)) {
+                callback.onFailure(new Exception("Batch job ended in state " + state));
+            } else {
+                callback.onPending(state);
+            }
+            return;
+        }
+        if (operation.has("error")) {
+            callback.onFailure(new Exception("Batch job failed: " + operation.get("error")));
+            return;
+        }
+
+        // Inlined results live under response.inlinedResponses.inlinedResponses once the job is done.
+        JsonArray inlinedResponses = null;
+        JsonObject result = operation.has("response") ? operation.getAsJsonObject("response") : null;
+        if (result != null && result.has("inlinedResponses")) {
+            inlinedResponses = result.getAsJsonObject("inlinedResponses").getAsJsonArray("inlinedResponses");
+        }
+
+        // Entries are matched by the key they were submitted with; one without a usable key is
+        // dropped, and a key claimed twice fails that query rather than guessing.
+        BatchResult[] byIndex = new BatchResult[userQueries.size()];
+        boolean[] claimed = new boolean[userQueries.size()];
+        if (inlinedResponses != null) {
+            for (JsonElement element : inlinedResponses) {
+                JsonObject entry = element.getAsJsonObject();
+                int index = requestIndexOf(entry);
+                if (index < 0 || index >= byIndex.length) {
+                    continue;
+                }
+                String query = userQueries.get(index);
+                if (claimed[index]) {
+                    byIndex[index] = BatchResult.failure(query, new Exception("More than one response returned for this figure."));
+                    continue;
+                }
+                claimed[index] = true;
+                byIndex[index] = parseInlinedResponse(query, entry);
+            }
+        }
+
+        List<BatchResult> results = new ArrayList<>(byIndex.length);
+        for (int i = 0; i < byIndex.length; i++) {
+            results.add(byIndex[i] != null ? byIndex[i]
+                    : BatchResult.failure(userQueries.get(i), new Exception("No response returned for this figure.")));
+        }
+        callback.onComplete(results);
+    }
+
+    /**
+     * @return The index a job entry was submitted with, or -1 if it carries none.
+     */
+    private static int requestIndexOf(JsonObject entry) {
+        JsonObject metadata = entry.has("metadata") && entry.get("metadata").isJsonObject()
+                ? entry.getAsJsonObject("metadata") : null;
+        if (metadata == null || !metadata.has(GeminiPayloads.BATCH_KEY)) {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(metadata.get(GeminiPayloads.BATCH_KEY).getAsString().trim());
+        } catch (RuntimeException e) {
+            return -1;
+        }
+    }
+
+    private BatchResult parseInlinedResponse(String query, JsonObject entry) {
+        if (entry.has("error") || !entry.has("response")) {
+            return BatchResult.failure(query, new Exception("Request failed: " + entry.get("error")));
+        }
+        String generatedText = GeminiPayloads.extractText(entry.getAsJsonObject("response"));
+        if (generatedText == null) {
+            return BatchResult.failure(query, new Exception("Could not extract generated text from API response."));
+        }
+        try {
+            return parseBatchItem(query, new JsonParser().parse(GeminiPayloads.stripCodeFence(generatedText)));
+        } catch (Exception e) {
+            return BatchResult.failure(query, e);
+        }
+    }
+
+    /**
+     * The outcome of one figure within a batch: either a parsed response or the error for that figure.
+     */
+    public static class BatchResult {
+        public final String query;
+        public final GroundedResponse response;
+        public final Exception error;
+
+        private BatchResult(String query, GroundedResponse response, Exception error) {
+            this.query = query;
+            this.response = response;
+            this.error = error;
+        }
+
+        public static BatchResult success(String query, GroundedResponse response) {
+            return new BatchResult(query, response, null);
+        }
+
+        public static BatchResult failure(String query, Exception error) {
+            return new BatchResult(query, null, error);
+        }
+
+        public boolean isSuccessful() {
+            return response != null;
         }
     }
-}
\ No newline at end of file
+}
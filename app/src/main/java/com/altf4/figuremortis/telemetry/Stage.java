@@ -0,0 +1,35 @@
+package com.altf4.figuremortis.telemetry;
+
+/**
+ * The stages a request or screen goes through, each with its own latency histogram.
+ */
+public enum Stage {
+    /** DNS lookup. */
+    DNS,
+    /** TCP connect, excluding the TLS handshake. */
+    CONNECT,
+    /** TLS handshake. */
+    TLS,
+    /** Writing the request headers and body. */
+    REQUEST,
+    /** From the request being sent to the first response byte; for Gemini this is generation time. */
+    SERVER_WAIT,
+    /** Reading the response body. */
+    RESPONSE_BODY,
+    /** Parsing a response into model objects. */
+    PARSE,
+    /** Sorting, grouping and indexing the day list. */
+    GROUP,
+    /** Answering a type-ahead query on the day list. */
+    FILTER,
+    /** SQLite reads. */
+    DB_READ,
+    /** SQLite writes. */
+    DB_WRITE,
+    /** Linkifying and measuring biography text. */
+    TEXT_LAYOUT,
+    /** Creating a list row's view holder. */
+    INFLATE,
+    /** Binding a list row. */
+    BIND
+}
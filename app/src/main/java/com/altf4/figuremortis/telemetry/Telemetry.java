@@ -0,0 +1,178 @@
+package com.altf4.figuremortis.telemetry;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * App-wide performance counters: a latency histogram per {@link Stage}, hit rates per cache and
+ * bytes transferred over the network.
+ * <p>
+ * Everything is off unless {@link #setEnabled} is called with true. While disabled,
+ * {@link #start()} returns 0 and every recording method returns after a single volatile read.
+ * Typical use:
+ * <pre>
+ * long t0 = Telemetry.start();
+ * ... work ...
+ * Telemetry.end(Stage.PARSE, t0);
+ * </pre>
+ */
+public final class Telemetry {
+
+    private static volatile boolean enabled;
+
+    private static final Histogram[] HISTOGRAMS = new Histogram[Stage.values().length];
+    private static final Map<String, AtomicLong[]> CACHES = new ConcurrentHashMap<>();
+    private static final AtomicLong BYTES_SENT = new AtomicLong();
+    private static final AtomicLong BYTES_RECEIVED = new AtomicLong();
+
+    static {
+        for (int i = 0; i < HISTOGRAMS.length; i++) {
+            HISTOGRAMS[i] = new Histogram();
+        }
+    }
+
+    private Telemetry() {
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void setEnabled(boolean enabled) {
+        Telemetry.enabled = enabled;
+    }
+
+    /**
+     * @return A start timestamp for {@link #end}, or 0 when telemetry is disabled.
+     */
+    public static long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Records the time since {@code startNanos} for the stage. Does nothing if {@code startNanos} is 0.
+     */
+    public static void end(Stage stage, long startNanos) {
+        if (startNanos != 0) {
+            HISTOGRAMS[stage.ordinal()].record(System.nanoTime() - startNanos);
+        }
+    }
+
+    /**
+     * Records an already measured duration for the stage.
+     */
+    public static void record(Stage stage, long nanos) {
+        if (enabled) {
+            HISTOGRAMS[stage.ordinal()].record(nanos);
+        }
+    }
+
+    /**
+     * Counts one lookup in the named cache.
+     */
+    public static void cacheLookup(String cache, boolean hit) {
+        if (!enabled) {
+            return;
+        }
+        AtomicLong[] counters = CACHES.get(cache);
+        if (counters == null) {
+            counters = CACHES.computeIfAbsent(cache, k -> new AtomicLong[]{new AtomicLong(), new AtomicLong()});
+        }
+        counters[hit ? 0 : 1].incrementAndGet();
+    }
+
+    public static void bytesTransferred(long sent, long received) {
+        if (enabled) {
+            BYTES_SENT.addAndGet(sent);
+            BYTES_RECEIVED.addAndGet(received);
+        }
+    }
+
+    public static Histogram histogram(Stage stage) {
+        return HISTOGRAMS[stage.ordinal()];
+    }
+
+    public static void reset() {
+        for (Histogram histogram : HISTOGRAMS) {
+            histogram.reset();
+        }
+        CACHES.clear();
+        BYTES_SENT.set(0);
+        BYTES_RECEIVED.set(0);
+    }
+
+    /**
+     * @return A short, human-readable summary for the debug overlay.
+     */
+    public static String summary() {
+        StringBuilder text = new StringBuilder();
+        for (Stage stage : Stage.values()) {
+            Histogram histogram = histogram(stage);
+            if (histogram.getCount() == 0) {
+                continue;
+            }
+            text.append(String.format(Locale.US, "%-13s n=%-4d p50=%6.1f p99=%6.1f ms%n",
+                    stage.name(), histogram.getCount(),
+                    histogram.getValueAtPercentile(50) / 1e6, histogram.getValueAtPercentile(99) / 1e6));
+        }
+        for (Map.Entry<String, AtomicLong[]> cache : CACHES.entrySet()) {
+            long hits = cache.getValue()[0].get();
+            long misses = cache.getValue()[1].get();
+            text.append(String.format(Locale.US, "cache %-8s hit %3.0f%% of %d%n",
+                    cache.getKey(), 100.0 * hits / Math.max(1, hits + misses), hits + misses));
+        }
+        text.append(String.format(Locale.US, "net  sent %d KB  received %d KB",
+                BYTES_SENT.get() / 1024, BYTES_RECEIVED.get() / 1024));
+        return text.toString();
+    }
+
+    /**
+     * Writes every histogram, cache and byte counter as JSON.
+     */
+    public static void exportTo(File file) throws IOException {
+        JsonObject stages = new JsonObject();
+        for (Stage stage : Stage.values()) {
+            Histogram histogram = histogram(stage);
+            JsonObject entry = new JsonObject();
+            entry.addProperty("count", histogram.getCount());
+            entry.addProperty("mean_ns", histogram.getMean());
+            entry.addProperty("p50_ns", histogram.getValueAtPercentile(50));
+            entry.addProperty("p90_ns", histogram.getValueAtPercentile(90));
+            entry.addProperty("p99_ns", histogram.getValueAtPercentile(99));
+            entry.addProperty("max_ns", histogram.getMax());
+            stages.add(stage.name(), entry);
+        }
+        JsonObject caches = new JsonObject();
+        for (Map.Entry<String, AtomicLong[]> cache : CACHES.entrySet()) {
+            JsonObject entry = new JsonObject();
+            entry.addProperty("hits", cache.getValue()[0].get());
+            entry.addProperty("misses", cache.getValue()[1].get());
+            caches.add(cache.getKey(), entry);
+        }
+        JsonObject root = new JsonObject();
+        root.addProperty("timestamp_ms", System.currentTimeMillis());
+        root.add("stages", stages);
+        root.add("caches", caches);
+        root.addProperty("bytes_sent", BYTES_SENT.get());
+        root.addProperty("bytes_received", BYTES_RECEIVED.get());
+
+        File dir = file.getParentFile();
+        if (dir != null && !dir.exists() && !dir.mkdirs()) {
+            throw new IOException("Could not create " + dir);
+        }
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            new GsonBuilder().setPrettyPrinting().create().toJson(root, writer);
+        }
+    }
+}
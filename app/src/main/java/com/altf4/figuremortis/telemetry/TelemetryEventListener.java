@@ -0,0 +1,105 @@
+package com.altf4.figuremortis.telemetry;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.List;
+
+import okhttp3.Call;
+import okhttp3.EventListener;
+import okhttp3.Handshake;
+import okhttp3.Protocol;
+import okhttp3.Response;
+
+/**
+ * Splits each OkHttp call into network {@link Stage}s. One instance is created per call, so the
+ * timestamps need no synchronisation. The factory hands out {@link EventListener#NONE} while
+ * telemetry is disabled, so calls pay nothing for it.
+ */
+public final class TelemetryEventListener extends EventListener {
+
+    public static final EventListener.Factory FACTORY = call ->
+            Telemetry.isEnabled() ? new TelemetryEventListener() : EventListener.NONE;
+
+    private long dnsStart;
+    private long connectStart;
+    private long tlsStart;
+    private long requestStart;
+    private long requestEnd;
+    private long bodyStart;
+    private long bytesSent;
+
+    @Override
+    public void dnsStart(Call call, String domainName) {
+        dnsStart = System.nanoTime();
+    }
+
+    @Override
+    public void dnsEnd(Call call, String domainName, List<InetAddress> inetAddressList) {
+        Telemetry.end(Stage.DNS, dnsStart);
+    }
+
+    @Override
+    public void connectStart(Call call, InetSocketAddress inetSocketAddress, Proxy proxy) {
+        connectStart = System.nanoTime();
+        tlsStart = 0;
+    }
+
+    @Override
+    public void secureConnectStart(Call call) {
+        tlsStart = System.nanoTime();
+    }
+
+    @Override
+    public void secureConnectEnd(Call call, Handshake handshake) {
+        Telemetry.end(Stage.TLS, tlsStart);
+    }
+
+    @Override
+    public void connectEnd(Call call, InetSocketAddress inetSocketAddress, Proxy proxy, Protocol protocol) {
+        if (connectStart == 0) {
+            return;
+        }
+        // TCP time is everything up to the TLS handshake, if there was one.
+        long tcpEnd = tlsStart != 0 ? tlsStart : System.nanoTime();
+        Telemetry.record(Stage.CONNECT, tcpEnd - connectStart);
+    }
+
+    @Override
+    public void requestHeadersStart(Call call) {
+        requestStart = System.nanoTime();
+    }
+
+    @Override
+    public void requestHeadersEnd(Call call, okhttp3.Request request) {
+        requestEnd = System.nanoTime();
+    }
+
+    @Override
+    public void requestBodyEnd(Call call, long byteCount) {
+        bytesSent += byteCount;
+        requestEnd = System.nanoTime();
+    }
+
+    @Override
+    public void responseHeadersStart(Call call) {
+        Telemetry.end(Stage.REQUEST, requestStart);
+        Telemetry.end(Stage.SERVER_WAIT, requestEnd);
+    }
+
+    @Override
+    public void responseHeadersEnd(Call call, Response response) {
+    }
+
+    @Override
+    public void responseBodyStart(Call call) {
+        bodyStart = System.nanoTime();
+    }
+
+    @Override
+    public void responseBodyEnd(Call call, long byteCount) {
+        Telemetry.end(Stage.RESPONSE_BODY, bodyStart);
+        Telemetry.bytesTransferred(bytesSent, byteCount);
+        bytesSent = 0;
+    }
+}
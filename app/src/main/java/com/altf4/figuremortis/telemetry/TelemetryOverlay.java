@@ -0,0 +1,115 @@
+package com.altf4.figuremortis.telemetry;
+
+import android.app.Activity;
+import android.app.Application;
+import android.graphics.Color;
+import android.graphics.Typeface;
+import android.os.Bundle;
+import android.view.Gravity;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+import android.widget.Toast;
+
+import androidx.annotation.NonNull;
+import androidx.appcompat.widget.AppCompatTextView;
+
+import com.altf4.figuremortis.memory.MemoryGovernor;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * A small debug panel drawn over every Activity while telemetry is enabled. It refreshes the stage
+ * percentiles and cache occupancy once a second; tapping it exports the full counters to a JSON
+ * file in app storage.
+ */
+public final class TelemetryOverlay extends AppCompatTextView {
+
+    private static final long REFRESH_MS = 1000;
+
+    private final Runnable refresh = new Runnable() {
+        @Override
+        public void run() {
+            setText(Telemetry.summary() + "\n" + MemoryGovernor.get().summary());
+            postDelayed(this, REFRESH_MS);
+        }
+    };
+
+    private TelemetryOverlay(Activity activity) {
+        super(activity);
+        setTypeface(Typeface.MONOSPACE);
+        setTextSize(9);
+        setTextColor(Color.WHITE);
+        setBackgroundColor(0xB0000000);
+        setPadding(12, 8, 12, 8);
+        setOnClickListener(v -> export(activity));
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        post(refresh);
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        removeCallbacks(refresh);
+        super.onDetachedFromWindow();
+    }
+
+    private static void export(Activity activity) {
+        File file = new File(new File(activity.getFilesDir(), "telemetry"),
+                "telemetry-" + System.currentTimeMillis() + ".json");
+        try {
+            Telemetry.exportTo(file);
+            Toast.makeText(activity, "Telemetry written to " + file.getAbsolutePath(), Toast.LENGTH_LONG).show();
+        } catch (IOException e) {
+            Toast.makeText(activity, "Telemetry export failed: " + e.getMessage(), Toast.LENGTH_LONG).show();
+        }
+    }
+
+    /**
+     * Adds the overlay to every Activity created while telemetry is enabled.
+     */
+    public static void install(Application application) {
+        application.registerActivityLifecycleCallbacks(new Application.ActivityLifecycleCallbacks() {
+            @Override
+            public void onActivityCreated(@NonNull Activity activity, Bundle savedInstanceState) {
+            }
+
+            @Override
+            public void onActivityStarted(@NonNull Activity activity) {
+            }
+
+            @Override
+            public void onActivityResumed(@NonNull Activity activity) {
+                ViewGroup decor = (ViewGroup) activity.getWindow().getDecorView();
+                if (!Telemetry.isEnabled() || decor.findViewWithTag(TelemetryOverlay.class) != null) {
+                    return;
+                }
+                TelemetryOverlay overlay = new TelemetryOverlay(activity);
+                overlay.setTag(TelemetryOverlay.class);
+                FrameLayout.LayoutParams params = new FrameLayout.LayoutParams(
+                        ViewGroup.LayoutParams.WRAP_CONTENT, ViewGroup.LayoutParams.WRAP_CONTENT,
+                        Gravity.BOTTOM | Gravity.START);
+                decor.addView(overlay, params);
+            }
+
+            @Override
+            public void onActivityPaused(@NonNull Activity activity) {
+            }
+
+            @Override
+            public void onActivityStopped(@NonNull Activity activity) {
+            }
+
+            @Override
+            public void onActivitySaveInstanceState(@NonNull Activity activity, @NonNull Bundle outState) {
+            }
+
+            @Override
+            public void onActivityDestroyed(@NonNull Activity activity) {
+            }
+        });
+    }
+}
@@ -0,0 +1,209 @@
+package com.altf4.figuremortis.text;
+
+import android.text.SpannableStringBuilder;
+import android.text.Spanned;
+import android.text.TextPaint;
+import android.text.style.ClickableSpan;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.core.text.PrecomputedTextCompat;
+
+import com.altf4.figuremortis.memory.BudgetedCache;
+import com.altf4.figuremortis.memory.MemoryGovernor;
+import com.altf4.figuremortis.telemetry.Stage;
+import com.altf4.figuremortis.telemetry.Telemetry;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Turns a biography into display-ready text off the UI thread.
+ * <p>
+ * Citation markers such as "[1, 3]" in the details become clickable spans pointing at the matching
+ * source line, and both texts are measured with {@link PrecomputedTextCompat} so the TextView only
+ * has to draw them. The span work is cached per figure within the {@link MemoryGovernor} budget;
+ * the precomputed layout is reused as long as the text metrics (font, size, width-independent
+ * params) have not changed.
+ */
+public final class BiographyRenderer {
+
+    private static final Pattern CITATION = Pattern.compile("\\[(\\d+(?:\\s*,\\s*\\d+)*)]");
+    private static final Pattern NUMBER = Pattern.compile("\\d+");
+    // Rough per-character cost of an entry: the details string, its spanned copy and the
+    // per-character widths PrecomputedText measures.
+    private static final int BYTES_PER_CHAR = 2 + 2 + 4;
+    private static final int BYTES_PER_SPAN = 64;
+
+    private static volatile BiographyRenderer instance;
+
+    private final BudgetedCache<String, Entry> cache =
+            MemoryGovernor.get().register("bio", 1, (key, entry) -> entry.weight);
+
+    /**
+     * Implemented by the host Activity to react to a tapped citation. Looking the listener up from
+     * the clicked view's context keeps cached spans free of Activity references.
+     */
+    public interface OnCitationClickListener {
+        void onCitationClick(String sourceNumber);
+    }
+
+    public static BiographyRenderer get() {
+        if (instance == null) {
+            synchronized (BiographyRenderer.class) {
+                if (instance == null) {
+                    instance = new BiographyRenderer();
+                }
+            }
+        }
+        return instance;
+    }
+
+    private BiographyRenderer() {
+    }
+
+    /**
+     * Builds the spans and precomputes layout for a biography. Must be called off the UI thread.
+     *
+     * @param key           Identifies the figure, e.g. its name.
+     * @param details       The biography text with citation markers.
+     * @param sources       The sources, e.g. [{"1": "url1"}, {"2": "url2"}].
+     * @param detailsParams Text metrics of the details TextView, read on the UI thread.
+     * @param sourcesParams Text metrics of the sources TextView, read on the UI thread.
+     */
+    public Rendered render(String key, String details, List<Map<String, String>> sources,
+                           PrecomputedTextCompat.Params detailsParams,
+                           PrecomputedTextCompat.Params sourcesParams) {
+        Entry entry = cache.get(key);
+        // Source offsets are baked into the spans, so a changed source list needs a new entry too.
+        boolean hit = entry != null && entry.details.equals(details) && Objects.equals(entry.sources, sources);
+        Telemetry.cacheLookup("bio", hit);
+        if (!hit) {
+            entry = new Entry(details, sources);
+            cache.put(key, entry);
+        }
+        return entry.precompute(detailsParams, sourcesParams);
+    }
+
+    /**
+     * Drops every cached biography.
+     */
+    public void clear() {
+        cache.evictAll();
+    }
+
+    /**
+     * Display-ready biography texts.
+     */
+    public static final class Rendered {
+        public final PrecomputedTextCompat details;
+        public final PrecomputedTextCompat sources;
+        private final Map<String, Integer> sourceOffsets;
+
+        Rendered(PrecomputedTextCompat details, PrecomputedTextCompat sources, Map<String, Integer> sourceOffsets) {
+            this.details = details;
+            this.sources = sources;
+            this.sourceOffsets = sourceOffsets;
+        }
+
+        /**
+         * @return The character offset of the given source in {@link #sources}, or -1 if unknown.
+         */
+        public int offsetOfSource(String sourceNumber) {
+            Integer offset = sourceOffsets.get(sourceNumber);
+            return offset != null ? offset : -1;
+        }
+    }
+
+    private static final class Entry {
+        final String details;
+        final List<Map<String, String>> sources;
+        final Spanned detailsSpanned;
+        final Spanned sourcesSpanned;
+        final Map<String, Integer> sourceOffsets = new HashMap<>();
+        final int weight;
+
+        private Rendered rendered;
+        private PrecomputedTextCompat.Params detailsParams;
+        private PrecomputedTextCompat.Params sourcesParams;
+
+        Entry(String details, List<Map<String, String>> sources) {
+            this.details = details;
+            this.sources = sources != null ? new ArrayList<>(sources) : null;
+
+            SpannableStringBuilder sourcesText = new SpannableStringBuilder("Sources:\n");
+            if (sources != null) {
+                for (Map<String, String> sourceMap : sources) {
+                    for (Map.Entry<String, String> source : sourceMap.entrySet()) {
+                        sourceOffsets.put(source.getKey(), sourcesText.length());
+                        sourcesText.append(source.getKey()).append(". ").append(source.getValue()).append("\n");
+                    }
+                }
+            }
+            this.sourcesSpanned = sourcesText;
+            this.detailsSpanned = linkifyCitations(details);
+            this.weight = (detailsSpanned.length() + sourcesSpanned.length()) * BYTES_PER_CHAR
+                    + detailsSpanned.getSpans(0, detailsSpanned.length(), Object.class).length * BYTES_PER_SPAN;
+        }
+
+        Spanned linkifyCitations(String details) {
+            SpannableStringBuilder text = new SpannableStringBuilder(details);
+            Matcher citation = CITATION.matcher(details);
+            while (citation.find()) {
+                Matcher number = NUMBER.matcher(citation.group(1));
+                int groupStart = citation.start(1);
+                while (number.find()) {
+                    String sourceNumber = number.group();
+                    // Only link numbers that have a source to jump to.
+                    if (sourceOffsets.containsKey(sourceNumber)) {
+                        text.setSpan(new CitationSpan(sourceNumber), groupStart + number.start(),
+                                groupStart + number.end(), Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
+                    }
+                }
+            }
+            return text;
+        }
+
+        synchronized Rendered precompute(PrecomputedTextCompat.Params newDetailsParams,
+                                         PrecomputedTextCompat.Params newSourcesParams) {
+            if (rendered == null || !newDetailsParams.equals(detailsParams) || !newSourcesParams.equals(sourcesParams)) {
+                long start = Telemetry.start();
+                rendered = new Rendered(
+                        PrecomputedTextCompat.create(detailsSpanned, newDetailsParams),
+                        PrecomputedTextCompat.create(sourcesSpanned, newSourcesParams),
+                        sourceOffsets);
+                detailsParams = newDetailsParams;
+                sourcesParams = newSourcesParams;
+                Telemetry.end(Stage.TEXT_LAYOUT, start);
+            }
+            return rendered;
+        }
+    }
+
+    private static final class CitationSpan extends ClickableSpan {
+        private final String sourceNumber;
+
+        CitationSpan(String sourceNumber) {
+            this.sourceNumber = sourceNumber;
+        }
+
+        @Override
+        public void onClick(@NonNull View widget) {
+            if (widget.getContext() instanceof OnCitationClickListener) {
+                ((OnCitationClickListener) widget.getContext()).onCitationClick(sourceNumber);
+            }
+        }
+
+        @Override
+        public void updateDrawState(@NonNull TextPaint ds) {
+            // Keep the link colour but drop the underline, which crowds the bracketed numbers.
+            ds.setColor(ds.linkColor);
+            ds.setUnderlineText(false);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.altf4.figuremortis.widget;
+
+import android.content.Context;
+import android.util.AtomicFile;
+import android.util.Log;
+
+import com.altf4.figuremortis.DaySnapshot;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Locale;
+
+/**
+ * Keeps the widget's {@link DaySnapshot} in app storage. The file is replaced atomically, and the
+ * last snapshot read is kept in memory until the file changes, so redrawing the widget rereads
+ * nothing.
+ */
+public final class DaySnapshotStore {
+
+    private static final String TAG = "DaySnapshotStore";
+    private static final String FILE_NAME = "widget/day.snapshot";
+
+    private static DaySnapshot cached;
+    private static long cachedModified;
+
+    private DaySnapshotStore() {
+    }
+
+    /**
+     * @return The stored snapshot, or null if there is none yet or it cannot be read.
+     */
+    public static synchronized DaySnapshot read(Context context) {
+        File file = file(context);
+        long modified = file.lastModified();
+        if (modified == 0) {
+            return null;
+        }
+        if (cached != null && modified == cachedModified) {
+            return cached;
+        }
+        try (FileInputStream in = new AtomicFile(file).openRead()) {
+            cached = DaySnapshot.readFrom(new BufferedInputStream(in));
+            cachedModified = modified;
+            return cached;
+        } catch (IOException e) {
+            Log.w(TAG, "Could not read day snapshot", e);
+            return null;
+        }
+    }
+
+    /**
+     * @return The stored snapshot if it is for today, or null if there is none, it cannot be read,
+     * or it is from an earlier day, e.g. when the daily job has not run since midnight.
+     */
+    public static DaySnapshot readToday(Context context) {
+        DaySnapshot snapshot = read(context);
+        return snapshot != null && dateOf(Calendar.getInstance()).equals(snapshot.date) ? snapshot : null;
+    }
+
+    /**
+     * @return The day as yyyy-MM-dd, the form of {@link DaySnapshot#date}.
+     */
+    public static String dateOf(Calendar day) {
+        return new SimpleDateFormat("yyyy-MM-dd", Locale.US).format(day.getTime());
+    }
+
+    public static synchronized void write(Context context, DaySnapshot snapshot) throws IOException {
+        File file = file(context);
+        File dir = file.getParentFile();
+        if (dir != null && !dir.exists() && !dir.mkdirs()) {
+            throw new IOException("Could not create " + dir);
+        }
+        AtomicFile atomicFile = new AtomicFile(file);
+        FileOutputStream out = atomicFile.startWrite();
+        try {
+            BufferedOutputStream buffered = new BufferedOutputStream(out);
+            snapshot.writeTo(buffered);
+            buffered.flush();
+            atomicFile.finishWrite(out);
+        } catch (IOException | RuntimeException e) {
+            atomicFile.failWrite(out);
+            throw e;
+        }
+        cached = snapshot;
+        cachedModified = file.lastModified();
+    }
+
+    /**
+     * @return Whether a snapshot exists and was written today. Only checks the file's timestamp.
+     */
+    public static boolean isFresh(Context context) {
+        long modified = file(context).lastModified();
+        if (modified == 0) {
+            return false;
+        }
+        Calendar written = Calendar.getInstance();
+        written.setTimeInMillis(modified);
+        Calendar now = Calendar.getInstance();
+        return written.get(Calendar.YEAR) == now.get(Calendar.YEAR)
+                && written.get(Calendar.DAY_OF_YEAR) == now.get(Calendar.DAY_OF_YEAR);
+    }
+
+    private static File file(Context context) {
+        return new File(context.getFilesDir(), FILE_NAME);
+    }
+}
@@ -0,0 +1,74 @@
+package com.altf4.figuremortis.widget;
+
+import android.app.PendingIntent;
+import android.appwidget.AppWidgetManager;
+import android.appwidget.AppWidgetProvider;
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.Intent;
+import android.net.Uri;
+import android.widget.RemoteViews;
+
+import com.altf4.figuremortis.DetailActivity;
+import com.altf4.figuremortis.R;
+import com.altf4.figuremortis.work.DaySnapshotWorker;
+
+/**
+ * A home-screen list of today's deaths. Rows come from the precomputed {@link com.altf4.figuremortis.DaySnapshot}
+ * through {@link TodayWidgetService}, so drawing the widget never touches the network; tapping a
+ * row opens {@link DetailActivity} directly.
+ */
+public class TodayWidgetProvider extends AppWidgetProvider {
+
+    /**
+     * Redraws every placed widget from the current snapshot.
+     */
+    public static void updateAll(Context context) {
+        AppWidgetManager manager = AppWidgetManager.getInstance(context);
+        int[] ids = manager.getAppWidgetIds(new ComponentName(context, TodayWidgetProvider.class));
+        if (ids.length > 0) {
+            manager.notifyAppWidgetViewDataChanged(ids, R.id.widget_list);
+        }
+    }
+
+    @Override
+    public void onEnabled(Context context) {
+        DaySnapshotWorker.scheduleDaily(context);
+    }
+
+    @Override
+    public void onDisabled(Context context) {
+        DaySnapshotWorker.cancel(context);
+    }
+
+    @Override
+    public void onUpdate(Context context, AppWidgetManager appWidgetManager, int[] appWidgetIds) {
+        for (int appWidgetId : appWidgetIds) {
+            appWidgetManager.updateAppWidget(appWidgetId, buildViews(context, appWidgetId));
+        }
+        // Has the rows reread, so a list from an earlier day is swapped for the empty view.
+        appWidgetManager.notifyAppWidgetViewDataChanged(appWidgetIds, R.id.widget_list);
+        // The daily job may not have run yet, e.g. right after the widget was added.
+        if (!DaySnapshotStore.isFresh(context)) {
+            DaySnapshotWorker.refreshNow(context);
+        }
+    }
+
+    private static RemoteViews buildViews(Context context, int appWidgetId) {
+        Intent serviceIntent = new Intent(context, TodayWidgetService.class)
+                .putExtra(AppWidgetManager.EXTRA_APPWIDGET_ID, appWidgetId);
+        // Distinct data per widget so the system does not share one adapter between them.
+        serviceIntent.setData(Uri.parse(serviceIntent.toUri(Intent.URI_INTENT_SCHEME)));
+
+        RemoteViews views = new RemoteViews(context.getPackageName(), R.layout.widget_today);
+        views.setRemoteAdapter(R.id.widget_list, serviceIntent);
+        views.setEmptyView(R.id.widget_list, R.id.widget_empty);
+
+        // Rows fill in the person's extras; the template must stay mutable for that.
+        Intent detailIntent = new Intent(context, DetailActivity.class);
+        PendingIntent template = PendingIntent.getActivity(context, appWidgetId, detailIntent,
+                PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_MUTABLE);
+        views.setPendingIntentTemplate(R.id.widget_list, template);
+        return views;
+    }
+}
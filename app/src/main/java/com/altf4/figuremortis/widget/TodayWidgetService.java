@@ -0,0 +1,109 @@
+package com.altf4.figuremortis.widget;
+
+import android.content.Context;
+import android.content.Intent;
+import android.widget.RemoteViews;
+import android.widget.RemoteViewsService;
+
+import com.altf4.figuremortis.DaySnapshot;
+import com.altf4.figuremortis.DisplayItem;
+import com.altf4.figuremortis.R;
+import com.altf4.figuremortis.db.SourcesCodec;
+import com.altf4.figuremortis.work.DaySnapshotWorker;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Supplies the widget's rows from the stored {@link DaySnapshot}.
+ */
+public class TodayWidgetService extends RemoteViewsService {
+
+    @Override
+    public RemoteViewsFactory onGetViewFactory(Intent intent) {
+        return new Factory(getApplicationContext());
+    }
+
+    private static final class Factory implements RemoteViewsFactory {
+        private final Context context;
+        private List<DaySnapshot.Row> rows = Collections.emptyList();
+
+        Factory(Context context) {
+            this.context = context;
+        }
+
+        @Override
+        public void onCreate() {
+        }
+
+        @Override
+        public void onDataSetChanged() {
+            // Runs on a binder thread; the store only rereads the file when it has changed.
+            DaySnapshot snapshot = DaySnapshotStore.readToday(context);
+            if (snapshot == null) {
+                // Yesterday's deaths under today's title would be wrong; the empty view says the
+                // list is on its way until the snapshot job writes today's.
+                rows = Collections.emptyList();
+                DaySnapshotWorker.refreshNow(context);
+                return;
+            }
+            rows = snapshot.rows;
+        }
+
+        @Override
+        public void onDestroy() {
+            rows = Collections.emptyList();
+        }
+
+        @Override
+        public int getCount() {
+            return rows.size();
+        }
+
+        @Override
+        public RemoteViews getViewAt(int position) {
+            DaySnapshot.Row row = rows.get(position);
+            if (row.type == DisplayItem.TYPE_HEADER) {
+                RemoteViews views = new RemoteViews(context.getPackageName(), R.layout.widget_row_header);
+                views.setTextViewText(R.id.widget_year, row.year);
+                return views;
+            }
+
+            RemoteViews views = new RemoteViews(context.getPackageName(), R.layout.widget_row_person);
+            views.setTextViewText(R.id.widget_person, row.text);
+            Intent fillIn = new Intent()
+                    .putExtra("PERSON_TEXT", row.text)
+                    .putExtra("PERSON_YEAR", row.year);
+            if (row.biography != null) {
+                // Prefetched by the snapshot job: DetailActivity shows it without a request.
+                fillIn.putExtra("PERSON_TEXT", row.biography.name)
+                        .putExtra("PERSON_BIRTH", row.biography.birth)
+                        .putExtra("PERSON_DETAILS", row.biography.details)
+                        .putExtra("PERSON_SOURCES", SourcesCodec.toJson(row.biography.sources))
+                        .putExtra("PERSON_PREFETCHED", true);
+            }
+            views.setOnClickFillInIntent(R.id.widget_person, fillIn);
+            return views;
+        }
+
+        @Override
+        public RemoteViews getLoadingView() {
+            return null;
+        }
+
+        @Override
+        public int getViewTypeCount() {
+            return 2;
+        }
+
+        @Override
+        public long getItemId(int position) {
+            return position;
+        }
+
+        @Override
+        public boolean hasStableIds() {
+            return false;
+        }
+    }
+}
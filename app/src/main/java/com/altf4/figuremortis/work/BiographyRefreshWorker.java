@@ -0,0 +1,206 @@
+package com.altf4.figuremortis.work;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.work.BackoffPolicy;
+import androidx.work.Constraints;
+import androidx.work.Data;
+import androidx.work.ExistingPeriodicWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.PeriodicWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import com.altf4.figuremortis.BuildConfig;
+import com.altf4.figuremortis.FigureNames;
+import com.altf4.figuremortis.db.DatabaseHelper;
+import com.altf4.figuremortis.exec.Priority;
+import com.altf4.figuremortis.service.ApiEndpoints;
+import com.altf4.figuremortis.service.GeminiService;
+import com.altf4.figuremortis.service.GroundedResponse;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Re-grounds saved biographies that have not been refreshed for a while, so their text and
+ * source links do not go stale.
+ * <p>
+ * Runs at most once a day, only while charging on an unmetered network, and spends a bounded
+ * number of Gemini requests per run, spaced apart. Requests go through the maintenance tier and
+ * results are written back one small transaction per batch. A new biography only replaces the
+ * saved one if it passes {@link #isValidRefresh}; otherwise the saved version is kept and the
+ * figure waits for the next period.
+ */
+public class BiographyRefreshWorker extends Worker {
+
+    private static final String TAG = "BiographyRefresh";
+    private static final String WORK_NAME = "biography-refresh";
+    private static final String KEY_MAX_AGE_DAYS = "max_age_days";
+
+    public static final int DEFAULT_MAX_AGE_DAYS = 30;
+
+    // Figures per Gemini request, and so per write-back transaction.
+    private static final int BATCH_SIZE = 5;
+    private static final int MAX_FIGURES_PER_RUN = 25;
+    private static final long MIN_REQUEST_INTERVAL_MS = 15_000;
+
+    // A refreshed biography shorter than this, or than half the saved one, is treated as truncated.
+    private static final int MIN_DETAILS_CHARS = 200;
+    private static final Pattern CITATION = Pattern.compile("\\[(\\d+(?:\\s*,\\s*\\d+)*)]");
+    private static final Pattern NUMBER = Pattern.compile("\\d+");
+
+    public BiographyRefreshWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    /**
+     * Schedules the daily refresh, replacing the age limit of an already scheduled one.
+     *
+     * @param maxAgeDays Figures saved or refreshed longer ago than this are refreshed.
+     */
+    public static void schedule(Context context, int maxAgeDays) {
+        Constraints constraints = new Constraints.Builder()
+                .setRequiresCharging(true)
+                .setRequiredNetworkType(NetworkType.UNMETERED)
+                .build();
+        PeriodicWorkRequest request = new PeriodicWorkRequest.Builder(BiographyRefreshWorker.class, 1, TimeUnit.DAYS)
+                .setConstraints(constraints)
+                .setInputData(new Data.Builder().putInt(KEY_MAX_AGE_DAYS, maxAgeDays).build())
+                .setBackoffCriteria(BackoffPolicy.EXPONENTIAL, 30, TimeUnit.MINUTES)
+                .build();
+        WorkManager.getInstance(context)
+                .enqueueUniquePeriodicWork(WORK_NAME, ExistingPeriodicWorkPolicy.UPDATE, request);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        int maxAgeDays = getInputData().getInt(KEY_MAX_AGE_DAYS, DEFAULT_MAX_AGE_DAYS);
+        long refreshedBefore = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(maxAgeDays);
+        DatabaseHelper db = new DatabaseHelper(getApplicationContext());
+        GeminiService service = new GeminiService(BuildConfig.GEMINI_API_KEY, ApiEndpoints.geminiApiRoot(), Priority.MAINTENANCE);
+
+        try {
+            int refreshed = 0;
+            int processed = 0;
+            while (processed < MAX_FIGURES_PER_RUN && !isStopped()) {
+                List<DatabaseHelper.StaleFigure> stale =
+                        db.getStaleFigures(refreshedBefore, Math.min(BATCH_SIZE, MAX_FIGURES_PER_RUN - processed));
+                if (stale.isEmpty()) {
+                    break;
+                }
+                if (processed > 0) {
+                    Thread.sleep(MIN_REQUEST_INTERVAL_MS);
+                }
+
+                List<String> queries = new ArrayList<>(stale.size());
+                for (DatabaseHelper.StaleFigure figure : stale) {
+                    queries.add(queryFor(figure));
+                }
+                List<GeminiService.BatchResult> results = BlockingGemini.generate(service, queries, this);
+                if (results == null) {
+                    // Stopped while waiting; whatever was written so far stays.
+                    break;
+                }
+
+                List<DatabaseHelper.Refresh> refreshes = matchRefreshes(stale, results);
+                for (DatabaseHelper.Refresh refresh : refreshes) {
+                    if (refresh.response == null) {
+                        Log.w(TAG, "Keeping saved biography of " + refresh.figure.name);
+                    }
+                }
+                refreshed += db.applyRefreshes(refreshes);
+                processed += stale.size();
+            }
+            Log.i(TAG, "Refreshed " + refreshed + " of " + processed + " stale biographies");
+            return Result.success();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Result.retry();
+        } catch (Exception e) {
+            // Network or server trouble: try again later with backoff, keeping what was written.
+            Log.w(TAG, "Biography refresh failed", e);
+            return Result.retry();
+        } finally {
+            db.close();
+        }
+    }
+
+    private static String queryFor(DatabaseHelper.StaleFigure figure) {
+        return figure.name + " that was deceased in " + figure.deathYear;
+    }
+
+    /**
+     * Pairs each stale figure with the result answering its query, whatever order the results
+     * come in. A figure without a result, or whose result fails {@link #isValidRefresh}, gets a
+     * null response so only its check time is recorded.
+     *
+     * @return One refresh per stale figure, in the same order.
+     */
+    static List<DatabaseHelper.Refresh> matchRefreshes(List<DatabaseHelper.StaleFigure> stale,
+                                                       List<GeminiService.BatchResult> results) {
+        Map<String, GeminiService.BatchResult> resultsByQuery = new HashMap<>();
+        for (GeminiService.BatchResult result : results) {
+            resultsByQuery.put(result.query, result);
+        }
+        List<DatabaseHelper.Refresh> refreshes = new ArrayList<>(stale.size());
+        for (DatabaseHelper.StaleFigure figure : stale) {
+            GeminiService.BatchResult result = resultsByQuery.get(queryFor(figure));
+            boolean valid = result != null && result.isSuccessful() && isValidRefresh(figure, result.response);
+            refreshes.add(new DatabaseHelper.Refresh(figure, valid ? result.response : null));
+        }
+        return refreshes;
+    }
+
+    /**
+     * Checks that a regenerated biography is about the same figure and at least as usable as the
+     * saved one: the same name once case, accents and punctuation are ignored, substantial text,
+     * at least one web source, and no citation pointing at a missing source.
+     */
+    static boolean isValidRefresh(DatabaseHelper.StaleFigure saved, GroundedResponse fresh) {
+        if (fresh == null || fresh.details == null || fresh.sources == null || fresh.sources.isEmpty()) {
+            return false;
+        }
+        if (!FigureNames.sameFigure(saved.name, fresh.name)) {
+            return false;
+        }
+        String details = fresh.details.trim();
+        int savedLength = saved.details != null ? saved.details.length() : 0;
+        if (details.length() < MIN_DETAILS_CHARS || details.length() < savedLength / 2) {
+            return false;
+        }
+
+        Set<String> sourceNumbers = new HashSet<>();
+        for (Map<String, String> source : fresh.sources) {
+            for (Map.Entry<String, String> entry : source.entrySet()) {
+                String url = entry.getValue();
+                if (url == null || !(url.startsWith("https://") || url.startsWith("http://"))) {
+                    return false;
+                }
+                sourceNumbers.add(entry.getKey());
+            }
+        }
+
+        Matcher citation = CITATION.matcher(details);
+        while (citation.find()) {
+            Matcher number = NUMBER.matcher(citation.group(1));
+            while (number.find()) {
+                if (!sourceNumbers.contains(number.group())) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
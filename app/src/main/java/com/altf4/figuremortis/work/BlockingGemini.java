@@ -0,0 +1,58 @@
+package com.altf4.figuremortis.work;
+
+import androidx.work.ListenableWorker;
+
+import com.altf4.figuremortis.service.GeminiService;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import okhttp3.Call;
+
+/**
+ * Runs {@link GeminiService} batch requests synchronously on a worker thread, cancelling them if
+ * WorkManager stops the worker meanwhile.
+ */
+final class BlockingGemini {
+
+    private static final long POLL_INTERVAL_MS = 500;
+
+    private BlockingGemini() {
+    }
+
+    /**
+     * @return The per-figure results, or null if the worker was stopped meanwhile.
+     * @throws Exception If the whole batch failed.
+     */
+    static List<GeminiService.BatchResult> generate(GeminiService service, List<String> queries,
+                                                    ListenableWorker worker) throws Exception {
+        CountDownLatch done = new CountDownLatch(1);
+        AtomicReference<List<GeminiService.BatchResult>> results = new AtomicReference<>();
+        AtomicReference<Exception> error = new AtomicReference<>();
+        Call call = service.generateGroundedResponses(queries, new GeminiService.BatchCallback() {
+            @Override
+            public void onComplete(List<GeminiService.BatchResult> batchResults) {
+                results.set(batchResults);
+                done.countDown();
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                error.set(e);
+                done.countDown();
+            }
+        });
+        while (!done.await(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS)) {
+            if (worker.isStopped()) {
+                call.cancel();
+                return null;
+            }
+        }
+        if (error.get() != null) {
+            throw error.get();
+        }
+        return results.get();
+    }
+}
@@ -0,0 +1,182 @@
+package com.altf4.figuremortis.work;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.work.Constraints;
+import androidx.work.ExistingPeriodicWorkPolicy;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.PeriodicWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import com.altf4.figuremortis.BuildConfig;
+import com.altf4.figuremortis.DaySnapshot;
+import com.altf4.figuremortis.Death;
+import com.altf4.figuremortis.DisplayItem;
+import com.altf4.figuremortis.HistoryApiService;
+import com.altf4.figuremortis.HistoryResponse;
+import com.altf4.figuremortis.exec.AppExecutors;
+import com.altf4.figuremortis.exec.Priority;
+import com.altf4.figuremortis.service.ApiEndpoints;
+import com.altf4.figuremortis.service.GeminiService;
+import com.altf4.figuremortis.service.GroundedResponse;
+import com.altf4.figuremortis.widget.DaySnapshotStore;
+import com.altf4.figuremortis.widget.TodayWidgetProvider;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import retrofit2.Response;
+import retrofit2.Retrofit;
+import retrofit2.converter.gson.GsonConverterFactory;
+
+/**
+ * Precomputes the day list for the home-screen widget shortly after midnight: fetches it, sorts and
+ * groups it like MainActivity, and stores it as a {@link DaySnapshot}. On an unmetered network
+ * the biographies of the first few rows are prefetched into the snapshot as well, so tapping them
+ * opens the biography without waiting for Gemini.
+ */
+public class DaySnapshotWorker extends Worker {
+
+    private static final String TAG = "DaySnapshot";
+    private static final String DAILY_WORK_NAME = "day-snapshot";
+    private static final String NOW_WORK_NAME = "day-snapshot-now";
+
+    // Minutes past midnight to run at, leaving the history API time to roll over.
+    private static final int MINUTES_PAST_MIDNIGHT = 5;
+    // The rows a widget shows without scrolling.
+    private static final int PREFETCH_BIOGRAPHIES = 3;
+
+    public DaySnapshotWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    /**
+     * Schedules the daily snapshot for shortly after the coming midnight. Keeps an already
+     * scheduled one.
+     */
+    public static void scheduleDaily(Context context) {
+        Calendar next = Calendar.getInstance();
+        next.add(Calendar.DAY_OF_YEAR, 1);
+        next.set(Calendar.HOUR_OF_DAY, 0);
+        next.set(Calendar.MINUTE, MINUTES_PAST_MIDNIGHT);
+        next.set(Calendar.SECOND, 0);
+        long delayMs = next.getTimeInMillis() - System.currentTimeMillis();
+
+        PeriodicWorkRequest request = new PeriodicWorkRequest.Builder(DaySnapshotWorker.class, 1, TimeUnit.DAYS)
+                .setConstraints(networkConstraints())
+                .setInitialDelay(delayMs, TimeUnit.MILLISECONDS)
+                .build();
+        WorkManager.getInstance(context)
+                .enqueueUniquePeriodicWork(DAILY_WORK_NAME, ExistingPeriodicWorkPolicy.KEEP, request);
+    }
+
+    /**
+     * Builds today's snapshot as soon as there is a network, e.g. when a widget is first added.
+     */
+    public static void refreshNow(Context context) {
+        OneTimeWorkRequest request = new OneTimeWorkRequest.Builder(DaySnapshotWorker.class)
+                .setConstraints(networkConstraints())
+                .build();
+        WorkManager.getInstance(context).enqueueUniqueWork(NOW_WORK_NAME, ExistingWorkPolicy.KEEP, request);
+    }
+
+    /**
+     * Stops both the daily and any pending immediate snapshot, once the last widget is removed.
+     */
+    public static void cancel(Context context) {
+        WorkManager.getInstance(context).cancelUniqueWork(DAILY_WORK_NAME);
+        WorkManager.getInstance(context).cancelUniqueWork(NOW_WORK_NAME);
+    }
+
+    private static Constraints networkConstraints() {
+        return new Constraints.Builder()
+                .setRequiredNetworkType(NetworkType.CONNECTED)
+                .build();
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        Calendar today = Calendar.getInstance();
+        String date = DaySnapshotStore.dateOf(today);
+        Retrofit retrofit = new Retrofit.Builder()
+                .baseUrl(ApiEndpoints.historyBaseUrl())
+                .client(AppExecutors.get().httpClient(Priority.MAINTENANCE))
+                .addConverterFactory(GsonConverterFactory.create())
+                .build();
+        HistoryApiService apiService = retrofit.create(HistoryApiService.class);
+
+        try {
+            Response<HistoryResponse> response = apiService
+                    .getEvents(today.get(Calendar.MONTH) + 1, today.get(Calendar.DAY_OF_MONTH))
+                    .execute();
+            if (!response.isSuccessful() || response.body() == null) {
+                Log.w(TAG, "History request failed: " + response.code());
+                return Result.retry();
+            }
+            List<DisplayItem> items = DisplayItem.fromDeaths(response.body().getData().getDeaths());
+            DaySnapshot snapshot = DaySnapshot.fromDisplayItems(date, items, prefetchBiographies(items));
+            DaySnapshotStore.write(getApplicationContext(), snapshot);
+            TodayWidgetProvider.updateAll(getApplicationContext());
+            return Result.success();
+        } catch (Exception e) {
+            Log.w(TAG, "Day snapshot failed", e);
+            return Result.retry();
+        }
+    }
+
+    /**
+     * @return Biographies of the first few deaths keyed by position in {@code items}; empty on a
+     * metered network or if Gemini fails, which only costs the widget its head start.
+     */
+    private Map<Integer, GroundedResponse> prefetchBiographies(List<DisplayItem> items) {
+        Map<Integer, GroundedResponse> biographies = new HashMap<>();
+        ConnectivityManager connectivity = (ConnectivityManager) getApplicationContext()
+                .getSystemService(Context.CONNECTIVITY_SERVICE);
+        if (connectivity == null || connectivity.isActiveNetworkMetered()) {
+            return biographies;
+        }
+
+        // Results name the query they answer, which leads back to the row it was built from.
+        Map<String, Integer> positionsByQuery = new LinkedHashMap<>();
+        for (int i = 0; i < items.size() && positionsByQuery.size() < PREFETCH_BIOGRAPHIES; i++) {
+            if (items.get(i).getType() == DisplayItem.TYPE_DEATH) {
+                Death death = items.get(i).getDeath();
+                // Same query as DetailActivity, so the result matches what it would fetch.
+                positionsByQuery.putIfAbsent(death.getText() + " that was deceased in " + death.getYear(), i);
+            }
+        }
+        if (positionsByQuery.isEmpty()) {
+            return biographies;
+        }
+
+        GeminiService service = new GeminiService(BuildConfig.GEMINI_API_KEY, ApiEndpoints.geminiApiRoot(), Priority.MAINTENANCE);
+        try {
+            List<GeminiService.BatchResult> results =
+                    BlockingGemini.generate(service, new ArrayList<>(positionsByQuery.keySet()), this);
+            if (results != null) {
+                for (GeminiService.BatchResult result : results) {
+                    Integer position = positionsByQuery.get(result.query);
+                    if (result.isSuccessful() && position != null) {
+                        biographies.put(position, result.response);
+                    }
+                }
+            }
+        } catch (Exception e) {
+            Log.w(TAG, "Biography prefetch failed", e);
+        }
+        return biographies;
+    }
+}
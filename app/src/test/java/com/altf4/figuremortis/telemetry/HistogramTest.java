@@ -0,0 +1,112 @@
+package com.altf4.figuremortis.telemetry;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class HistogramTest {
+
+    @Test
+    public void smallValues_haveTheirOwnBucket() {
+        for (long value = 0; value < 64; value++) {
+            assertEquals(value, Histogram.lowerBoundOf(Histogram.indexOf(value)));
+        }
+    }
+
+    @Test
+    public void bucketBoundaries() {
+        // From 64 on, each power of two is split into 32 sub-buckets: [64, 66), [66, 68), ...
+        assertEquals(64, Histogram.lowerBoundOf(Histogram.indexOf(65)));
+        assertEquals(66, Histogram.lowerBoundOf(Histogram.indexOf(66)));
+        assertEquals(Histogram.indexOf(1024) + 1, Histogram.indexOf(1024 + 32));
+        assertEquals(Histogram.indexOf(1024), Histogram.indexOf(1024 + 31));
+        assertEquals(Histogram.indexOf(2047) + 1, Histogram.indexOf(2048));
+    }
+
+    @Test
+    public void everyValue_isWithinOneSubBucket() {
+        long[] values = {100, 999, 12_345, 1_000_000, 16_666_667, 987_654_321_012L, Long.MAX_VALUE};
+        for (long value : values) {
+            long lower = Histogram.lowerBoundOf(Histogram.indexOf(value));
+            assertTrue(value + " below its bucket", lower <= value);
+            assertTrue(value + " too far above its bucket", value - lower <= value / 32);
+        }
+    }
+
+    @Test
+    public void indexes_increaseWithValue() {
+        int previous = Histogram.indexOf(0);
+        for (long value = 1; value > 0 && value < Long.MAX_VALUE / 3; value = value * 3 / 2 + 1) {
+            int index = Histogram.indexOf(value);
+            assertTrue(index >= previous);
+            previous = index;
+        }
+        assertTrue(Histogram.indexOf(Long.MAX_VALUE) >= previous);
+    }
+
+    @Test
+    public void empty_reportsZero() {
+        Histogram histogram = new Histogram();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getMean(), 0);
+        assertEquals(0, histogram.getValueAtPercentile(50));
+    }
+
+    @Test
+    public void zeroAndMax_areRecorded() {
+        Histogram histogram = new Histogram();
+        histogram.record(0);
+        histogram.record(Long.MAX_VALUE);
+        assertEquals(2, histogram.getCount());
+        assertEquals(Long.MAX_VALUE, histogram.getMax());
+        assertEquals(0, histogram.getValueAtPercentile(50));
+        assertEquals(Histogram.lowerBoundOf(Histogram.indexOf(Long.MAX_VALUE)), histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void negativeValues_areIgnored() {
+        Histogram histogram = new Histogram();
+        histogram.record(-1);
+        assertEquals(0, histogram.getCount());
+    }
+
+    @Test
+    public void percentiles_ofUniformValues() {
+        Histogram histogram = new Histogram();
+        for (long value = 1; value <= 1000; value++) {
+            histogram.record(value);
+        }
+        assertEquals(1000, histogram.getCount());
+        assertEquals(1000, histogram.getMax());
+        assertEquals(500.5, histogram.getMean(), 1e-9);
+        assertEquals(1, histogram.getValueAtPercentile(0));
+        // 500 lies in [496, 512), 990 in [976, 992).
+        assertEquals(496, histogram.getValueAtPercentile(50));
+        assertEquals(976, histogram.getValueAtPercentile(99));
+        assertEquals(992, histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void percentiles_ofSkewedValues() {
+        Histogram histogram = new Histogram();
+        for (int i = 0; i < 99; i++) {
+            histogram.record(10);
+        }
+        histogram.record(1_000_000);
+        assertEquals(10, histogram.getValueAtPercentile(50));
+        assertEquals(10, histogram.getValueAtPercentile(99));
+        long p100 = histogram.getValueAtPercentile(100);
+        assertTrue(p100 <= 1_000_000 && 1_000_000 - p100 <= 1_000_000 / 32);
+    }
+
+    @Test
+    public void reset_clearsEverything() {
+        Histogram histogram = new Histogram();
+        histogram.record(42);
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getValueAtPercentile(99));
+    }
+}
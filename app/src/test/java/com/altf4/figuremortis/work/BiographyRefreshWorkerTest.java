@@ -0,0 +1,99 @@
+package com.altf4.figuremortis.work;
+
+import com.altf4.figuremortis.db.DatabaseHelper;
+import com.altf4.figuremortis.service.GeminiService;
+import com.altf4.figuremortis.service.GroundedResponse;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class BiographyRefreshWorkerTest {
+
+    private static final String DETAILS = String.join(" ", Collections.nCopies(40, "Text")) + " [1].";
+
+    private static DatabaseHelper.StaleFigure stale(long id, String name, String deathYear) {
+        return new DatabaseHelper.StaleFigure(id, name, deathYear, "Saved details of " + name, 0);
+    }
+
+    private static GroundedResponse response(String name) {
+        GroundedResponse response = new GroundedResponse();
+        response.name = name;
+        response.details = DETAILS;
+        response.sources = Collections.singletonList(Collections.singletonMap("1", "https://example.com/" + name.hashCode()));
+        return response;
+    }
+
+    private static GeminiService.BatchResult answer(DatabaseHelper.StaleFigure figure, String name) {
+        return GeminiService.BatchResult.success(figure.name + " that was deceased in " + figure.deathYear, response(name));
+    }
+
+    @Test
+    public void matchRefreshes_reorderedResults_followQueries() {
+        DatabaseHelper.StaleFigure stalin = stale(1, "Joseph Stalin", "1953");
+        DatabaseHelper.StaleFigure thomas = stale(2, "Dylan Thomas", "1953");
+        DatabaseHelper.StaleFigure gaulle = stale(3, "Charles de Gaulle", "1970");
+
+        List<DatabaseHelper.Refresh> refreshes = BiographyRefreshWorker.matchRefreshes(
+                Arrays.asList(stalin, thomas, gaulle),
+                Arrays.asList(answer(gaulle, "Charles de Gaulle"), answer(stalin, "Joseph Stalin"),
+                        answer(thomas, "Dylan Thomas")));
+
+        assertEquals(3, refreshes.size());
+        assertSame(stalin, refreshes.get(0).figure);
+        assertEquals("Joseph Stalin", refreshes.get(0).response.name);
+        assertSame(thomas, refreshes.get(1).figure);
+        assertEquals("Dylan Thomas", refreshes.get(1).response.name);
+        assertSame(gaulle, refreshes.get(2).figure);
+        assertEquals("Charles de Gaulle", refreshes.get(2).response.name);
+    }
+
+    @Test
+    public void matchRefreshes_missingOrFailedResult_keepsSavedBiography() {
+        DatabaseHelper.StaleFigure stalin = stale(1, "Joseph Stalin", "1953");
+        DatabaseHelper.StaleFigure thomas = stale(2, "Dylan Thomas", "1953");
+        DatabaseHelper.StaleFigure gaulle = stale(3, "Charles de Gaulle", "1970");
+
+        List<DatabaseHelper.Refresh> refreshes = BiographyRefreshWorker.matchRefreshes(
+                Arrays.asList(stalin, thomas, gaulle),
+                Arrays.asList(answer(gaulle, "Charles de Gaulle"),
+                        GeminiService.BatchResult.failure("Joseph Stalin that was deceased in 1953", new Exception())));
+
+        assertEquals(3, refreshes.size());
+        assertSame(stalin, refreshes.get(0).figure);
+        assertNull(refreshes.get(0).response);
+        assertSame(thomas, refreshes.get(1).figure);
+        assertNull(refreshes.get(1).response);
+        assertSame(gaulle, refreshes.get(2).figure);
+        assertEquals("Charles de Gaulle", refreshes.get(2).response.name);
+    }
+
+    @Test
+    public void matchRefreshes_answerAboutAnotherFigure_isRejected() {
+        DatabaseHelper.StaleFigure stalin = stale(1, "Joseph Stalin", "1953");
+
+        List<DatabaseHelper.Refresh> refreshes = BiographyRefreshWorker.matchRefreshes(
+                Collections.singletonList(stalin), Collections.singletonList(answer(stalin, "Dylan Thomas")));
+
+        assertNull(refreshes.get(0).response);
+    }
+
+    @Test
+    public void isValidRefresh_ignoresCaseAndAccentsInName() {
+        DatabaseHelper.StaleFigure godel = stale(1, "Kurt G\u00f6del", "1978");
+        assertTrue(BiographyRefreshWorker.isValidRefresh(godel, response("kurt godel")));
+        assertFalse(BiographyRefreshWorker.isValidRefresh(godel, response("Kurt Vonnegut")));
+    }
+
+    @Test
+    public void isValidRefresh_rejectsCitationWithoutSource() {
+        DatabaseHelper.StaleFigure stalin = stale(1, "Joseph Stalin", "1953");
+        GroundedResponse fresh = response("Joseph Stalin");
+        fresh.details = DETAILS + " More [2].";
+        assertFalse(BiographyRefreshWorker.isValidRefresh(stalin, fresh));
+    }
+}
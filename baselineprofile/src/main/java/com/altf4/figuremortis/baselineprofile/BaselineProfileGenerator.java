@@ -0,0 +1,37 @@
+package com.altf4.figuremortis.baselineprofile;
+
+import androidx.benchmark.macro.junit4.BaselineProfileRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.LargeTest;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import kotlin.Unit;
+
+/**
+ * Generates the app's Baseline Profile by running the critical journeys: launch, scroll the day
+ * list, open a detail, open saved.
+ * <p>
+ * Run with {@code ./gradlew :app:generateBaselineProfile}; the result is copied to
+ * {@code app/src/release/generated/baselineProfiles} and packaged into release builds.
+ */
+@RunWith(AndroidJUnit4.class)
+@LargeTest
+public class BaselineProfileGenerator {
+
+    @Rule
+    public BaselineProfileRule rule = new BaselineProfileRule();
+
+    @Test
+    public void generate() {
+        rule.collect(Journeys.PACKAGE_NAME, scope -> {
+            Journeys.launchToList(scope);
+            Journeys.scrollList(scope);
+            Journeys.openDetail(scope);
+            Journeys.openSaved(scope);
+            return Unit.INSTANCE;
+        });
+    }
+}
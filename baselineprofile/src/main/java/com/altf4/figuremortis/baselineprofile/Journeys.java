@@ -0,0 +1,83 @@
+package com.altf4.figuremortis.baselineprofile;
+
+import androidx.benchmark.macro.MacrobenchmarkScope;
+import androidx.test.uiautomator.By;
+import androidx.test.uiautomator.Direction;
+import androidx.test.uiautomator.UiDevice;
+import androidx.test.uiautomator.UiObject2;
+import androidx.test.uiautomator.Until;
+
+import java.util.regex.Pattern;
+
+/**
+ * The critical user journeys shared by the profile generator and the benchmarks.
+ */
+final class Journeys {
+
+    static final String PACKAGE_NAME = "com.altf4.figuremortis";
+
+    // Covers the 3 s splash plus the history API round-trip.
+    private static final long LIST_TIMEOUT_MS = 15_000;
+    // Gemini grounding can take a while; the journey still records the code paths if it times out.
+    private static final long DETAIL_TIMEOUT_MS = 30_000;
+    private static final long SCREEN_TIMEOUT_MS = 5_000;
+
+    private static final Pattern SAVED_CONTENT =
+            Pattern.compile(PACKAGE_NAME + ":id/(savedRecyclerView|emptyText)");
+
+    private Journeys() {
+    }
+
+    /** Cold start through the splash screen until the day list shows its first rows. */
+    static void launchToList(MacrobenchmarkScope scope) {
+        scope.pressHome();
+        scope.startActivityAndWait();
+        UiDevice device = scope.getDevice();
+        device.wait(Until.hasObject(By.res(PACKAGE_NAME, "personName")), LIST_TIMEOUT_MS);
+    }
+
+    /** Flings the day list down and back up. */
+    static void scrollList(MacrobenchmarkScope scope) {
+        UiDevice device = scope.getDevice();
+        UiObject2 list = device.findObject(By.res(PACKAGE_NAME, "recyclerView"));
+        if (list == null) {
+            return;
+        }
+        // Keep the gesture clear of the system navigation areas.
+        list.setGestureMargin(device.getDisplayWidth() / 5);
+        for (int i = 0; i < 3; i++) {
+            list.fling(Direction.DOWN);
+            device.waitForIdle();
+        }
+        list.fling(Direction.UP);
+        device.waitForIdle();
+    }
+
+    /** Opens the first figure in the list and waits for its biography. */
+    static void openDetail(MacrobenchmarkScope scope) {
+        UiDevice device = scope.getDevice();
+        UiObject2 person = device.findObject(By.res(PACKAGE_NAME, "personName"));
+        if (person == null) {
+            return;
+        }
+        person.click();
+        device.wait(Until.hasObject(By.res(PACKAGE_NAME, "tv_details").textContains(" ")), DETAIL_TIMEOUT_MS);
+        device.pressBack();
+        device.waitForIdle();
+    }
+
+    /** Opens the saved figures screen and returns to the day list. */
+    static void openSaved(MacrobenchmarkScope scope) {
+        UiDevice device = scope.getDevice();
+        UiObject2 saved = device.findObject(By.res(PACKAGE_NAME, "btn_saved"));
+        if (saved == null) {
+            return;
+        }
+        saved.click();
+        // The saved screen shows either its list or the empty state.
+        device.wait(Until.hasObject(By.res(SAVED_CONTENT)), SCREEN_TIMEOUT_MS);
+        device.waitForIdle();
+        device.pressBack();
+        device.waitForIdle();
+    }
+}
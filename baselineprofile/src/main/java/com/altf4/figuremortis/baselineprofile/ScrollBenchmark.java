@@ -0,0 +1,65 @@
+package com.altf4.figuremortis.baselineprofile;
+
+import androidx.benchmark.macro.BaselineProfileMode;
+import androidx.benchmark.macro.CompilationMode;
+import androidx.benchmark.macro.FrameTimingMetric;
+import androidx.benchmark.macro.StartupMode;
+import androidx.benchmark.macro.junit4.MacrobenchmarkRule;
+import androidx.test.filters.LargeTest;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+
+import kotlin.Unit;
+
+/**
+ * Frame timing while flinging the day list, with and without the Baseline Profile.
+ */
+@RunWith(Parameterized.class)
+@LargeTest
+public class ScrollBenchmark {
+
+    private static final int ITERATIONS = 5;
+
+    @Parameterized.Parameters(name = "{0}")
+    public static Collection<Object[]> modes() {
+        return Arrays.asList(new Object[][]{
+                {"none", new CompilationMode.None()},
+                {"baselineProfile", new CompilationMode.Partial(BaselineProfileMode.UseIfAvailable, 0)},
+        });
+    }
+
+    @Rule
+    public MacrobenchmarkRule rule = new MacrobenchmarkRule();
+
+    private final CompilationMode compilationMode;
+
+    public ScrollBenchmark(String name, CompilationMode compilationMode) {
+        this.compilationMode = compilationMode;
+    }
+
+    @Test
+    public void scrollDayList() {
+        rule.measureRepeated(
+                Journeys.PACKAGE_NAME,
+                Collections.singletonList(new FrameTimingMetric()),
+                compilationMode,
+                StartupMode.COLD,
+                ITERATIONS,
+                scope -> {
+                    // Only the fling is measured; launching happens in setup.
+                    Journeys.launchToList(scope);
+                    return Unit.INSTANCE;
+                },
+                scope -> {
+                    Journeys.scrollList(scope);
+                    return Unit.INSTANCE;
+                });
+    }
+}
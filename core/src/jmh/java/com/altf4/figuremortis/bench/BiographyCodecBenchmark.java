@@ -0,0 +1,89 @@
+package com.altf4.figuremortis.bench;
+
+import com.altf4.figuremortis.Death;
+import com.altf4.figuremortis.db.BiographyCodec;
+import com.altf4.figuremortis.db.SourcesCodec;
+import com.altf4.figuremortis.service.GeminiPayloads;
+import com.altf4.figuremortis.service.GroundedResponse;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compressing and decompressing one saved biography, as the database does on every write and
+ * every opened detail. The stored size per figure is reported as the bytes counter.
+ *
+ * <p>The dictionary is trained on the recorded day's death descriptions and the recorded
+ * biography's sources, not its details, so the details compress as an unseen biography would.
+ * That is little to train on, so sizes stay close to plain Deflate, the "0" dictionary size; the
+ * instrumented BiographyStorageBenchmarkTest compares sizes over a whole library.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BiographyCodecBenchmark {
+
+    @Param({"0", "4096", "16384"})
+    public int dictionarySize;
+
+    private BiographyCodec codec;
+    private String details;
+    private String sources;
+    private byte[] encodedDetails;
+    private byte[] encodedSources;
+    private int plainBytes;
+
+    /**
+     * Bytes stored per figure, details and sources together, next to the UTF-8 text.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class StoredSize {
+        public long plainBytes;
+        public long storedBytes;
+    }
+
+    @Setup
+    public void setUp() throws Exception {
+        GroundedResponse response = GeminiPayloads.parseGroundedResponse(RecordedPayloads.read(RecordedPayloads.GEMINI));
+        details = response.details;
+        sources = SourcesCodec.toJson(response.sources);
+
+        List<String> samples = new ArrayList<>();
+        for (Death death : RecordedPayloads.deaths()) {
+            samples.add(death.getText());
+        }
+        samples.add(sources);
+        byte[] dictionary = dictionarySize == 0 ? new byte[0] : BiographyCodec.train(samples, dictionarySize);
+        codec = new BiographyCodec(1, dictionary);
+        encodedDetails = codec.encode(details);
+        encodedSources = codec.encode(sources);
+        plainBytes = details.getBytes(StandardCharsets.UTF_8).length + sources.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    @Benchmark
+    public int encode(StoredSize size) {
+        int stored = codec.encode(details).length + codec.encode(sources).length;
+        // Assigned, not added up, so the counters report one figure rather than the whole iteration.
+        size.plainBytes = plainBytes;
+        size.storedBytes = stored;
+        return stored;
+    }
+
+    @Benchmark
+    public int decode() {
+        return codec.decode(encodedDetails).length() + codec.decode(encodedSources).length();
+    }
+}
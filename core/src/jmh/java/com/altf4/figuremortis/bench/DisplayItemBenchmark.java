@@ -0,0 +1,66 @@
+package com.altf4.figuremortis.bench;
+
+import com.altf4.figuremortis.Death;
+import com.altf4.figuremortis.DisplayItem;
+import com.altf4.figuremortis.DisplayItemIndex;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The sort, group and index passes MainActivity runs on every day list.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class DisplayItemBenchmark {
+
+    /** Rows in the day list: the recorded day, then a busy date scaled up from it. */
+    @Param({"1", "40"})
+    public int copies;
+
+    private List<Death> source;
+    private List<Death> deaths;
+    private List<DisplayItem> grouped;
+
+    @Setup
+    public void setUp() {
+        List<Death> recorded = RecordedPayloads.deaths();
+        source = new ArrayList<>(recorded.size() * copies);
+        for (int i = 0; i < copies; i++) {
+            source.addAll(recorded);
+        }
+        // The API returns deaths mostly but not strictly in year order; shuffle to cover the sort.
+        Collections.shuffle(source, new Random(42));
+        grouped = DisplayItem.fromDeaths(new ArrayList<>(source));
+    }
+
+    // fromDeaths sorts in place, so every invocation gets a fresh, unsorted copy.
+    @Setup(Level.Invocation)
+    public void copy() {
+        deaths = new ArrayList<>(source);
+    }
+
+    @Benchmark
+    public List<DisplayItem> sortAndGroup() {
+        return DisplayItem.fromDeaths(deaths);
+    }
+
+    @Benchmark
+    public DisplayItemIndex buildIndex() {
+        return DisplayItemIndex.build(grouped);
+    }
+}
@@ -0,0 +1,53 @@
+package com.altf4.figuremortis.bench;
+
+import com.altf4.figuremortis.Death;
+import com.altf4.figuremortis.DisplayItem;
+import com.altf4.figuremortis.DisplayItemIndex;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One keystroke's query against the day list's type-ahead index. Building the index is covered by
+ * {@link DisplayItemBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DisplayItemIndexBenchmark {
+
+    /** Rows in the day list: the recorded day, then a busy date scaled up from it. */
+    @Param({"1", "40"})
+    public int copies;
+
+    /** A one-letter prefix matches the most tokens; a longer two-word query is the typical end state. */
+    @Param({"s", "amer", "american sing"})
+    public String query;
+
+    private DisplayItemIndex index;
+
+    @Setup
+    public void setUp() {
+        List<Death> recorded = RecordedPayloads.deaths();
+        List<Death> deaths = new ArrayList<>(recorded.size() * copies);
+        for (int i = 0; i < copies; i++) {
+            deaths.addAll(recorded);
+        }
+        index = DisplayItemIndex.build(DisplayItem.fromDeaths(deaths));
+    }
+
+    @Benchmark
+    public int[] query() {
+        return index.positions(query);
+    }
+}
@@ -0,0 +1,73 @@
+package com.altf4.figuremortis.bench;
+
+import com.altf4.figuremortis.db.FigureArchive;
+import com.altf4.figuremortis.db.SourcesCodec;
+import com.altf4.figuremortis.service.GeminiPayloads;
+import com.altf4.figuremortis.service.GroundedResponse;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writing and reading a saved-figures backup, without the database on either side.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class FigureArchiveBenchmark {
+
+    /** Saved figures in the library. */
+    @Param({"1000", "50000"})
+    public int figures;
+
+    private FigureArchive.Record record;
+    private byte[] archive;
+
+    @Setup
+    public void setUp() throws Exception {
+        GroundedResponse response = GeminiPayloads.parseGroundedResponse(RecordedPayloads.read(RecordedPayloads.GEMINI));
+        record = new FigureArchive.Record();
+        record.name = response.name;
+        record.birthDate = response.birth;
+        record.deathYear = "1990";
+        record.details = response.details;
+        record.sourcesJson = SourcesCodec.toJson(response.sources);
+        archive = write().toByteArray();
+    }
+
+    @Benchmark
+    public ByteArrayOutputStream write() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (FigureArchive.Writer writer = new FigureArchive.Writer(out, figures)) {
+            for (int i = 0; i < figures; i++) {
+                // Vary the name so the compressor cannot collapse identical records.
+                record.name = "Figure " + i;
+                writer.write(record);
+            }
+        }
+        return out;
+    }
+
+    @Benchmark
+    public int read() throws IOException {
+        int count = 0;
+        FigureArchive.Record into = new FigureArchive.Record();
+        try (FigureArchive.Reader reader = new FigureArchive.Reader(new ByteArrayInputStream(archive))) {
+            while (reader.next(into)) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,69 @@
+package com.altf4.figuremortis.bench;
+
+import com.altf4.figuremortis.service.GeminiPayloads;
+import com.altf4.figuremortis.service.GroundedResponse;
+import com.google.gson.Gson;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Request building and response parsing done for every biography fetch.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class GeminiPayloadsBenchmark {
+
+    private final Gson gson = new Gson();
+    private String responseBody;
+    private String generatedText;
+    private List<String> batchQueries;
+
+    @Setup
+    public void setUp() {
+        responseBody = RecordedPayloads.read(RecordedPayloads.GEMINI);
+        generatedText = GeminiPayloads.extractText(responseBody);
+        batchQueries = Arrays.asList(
+                "Pope John III (b. 520) that was deceased in 574",
+                "Pope Leo VII that was deceased in 939",
+                "Henry II, Holy Roman Emperor (b. 973) that was deceased in 1024",
+                "Frida Kahlo, Mexican painter (b. 1907) that was deceased in 1954");
+    }
+
+    /** Mirrors GeminiService.buildRequestJson: build the tree and serialise it. */
+    @Benchmark
+    public String buildRequestJson() {
+        return gson.toJson(GeminiPayloads.buildRequest("Pope John III (b. 520) that was deceased in 574"));
+    }
+
+    @Benchmark
+    public String buildBatchRequestJson() {
+        return gson.toJson(GeminiPayloads.buildBatchRequest(batchQueries));
+    }
+
+    @Benchmark
+    public String extractText() {
+        return GeminiPayloads.extractText(responseBody);
+    }
+
+    @Benchmark
+    public String stripCodeFence() {
+        return GeminiPayloads.stripCodeFence(generatedText);
+    }
+
+    /** Mirrors GeminiService.handleFinalResponse: extract, strip and bind to GroundedResponse. */
+    @Benchmark
+    public GroundedResponse parseGroundedResponse() throws Exception {
+        return GeminiPayloads.parseGroundedResponse(responseBody);
+    }
+}
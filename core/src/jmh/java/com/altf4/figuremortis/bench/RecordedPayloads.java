@@ -0,0 +1,52 @@
+package com.altf4.figuremortis.bench;
+
+import com.altf4.figuremortis.Death;
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonParser;
+import com.google.gson.reflect.TypeToken;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Loads the recorded API payloads shared with the instrumentation suite.
+ */
+final class RecordedPayloads {
+
+    static final String HISTORY = "recorded/history_date.json";
+    static final String GEMINI = "recorded/gemini_generate_content.json";
+
+    private RecordedPayloads() {
+    }
+
+    static String read(String name) {
+        try (InputStream in = RecordedPayloads.class.getClassLoader().getResourceAsStream(name)) {
+            if (in == null) {
+                throw new IllegalStateException("Missing recorded payload " + name);
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return The deaths from the recorded history payload, as Retrofit's Gson converter would read them.
+     */
+    static List<Death> deaths() {
+        JsonArray deaths = new JsonParser().parse(read(HISTORY)).getAsJsonObject()
+                .getAsJsonObject("data").getAsJsonArray("Deaths");
+        return new Gson().fromJson(deaths, new TypeToken<List<Death>>(){}.getType());
+    }
+}
@@ -0,0 +1,49 @@
+package com.altf4.figuremortis.bench;
+
+import com.altf4.figuremortis.db.SourcesCodec;
+import com.altf4.figuremortis.service.GeminiPayloads;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The sources JSON round-trip done by DatabaseHelper on save/load and by the saved-figure intent.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class SourcesCodecBenchmark {
+
+    private List<Map<String, String>> sources;
+    private String json;
+
+    @Setup
+    public void setUp() throws Exception {
+        sources = GeminiPayloads.parseGroundedResponse(RecordedPayloads.read(RecordedPayloads.GEMINI)).sources;
+        json = SourcesCodec.toJson(sources);
+    }
+
+    @Benchmark
+    public String encode() {
+        return SourcesCodec.toJson(sources);
+    }
+
+    @Benchmark
+    public List<Map<String, String>> decode() {
+        return SourcesCodec.fromJson(json);
+    }
+
+    @Benchmark
+    public List<Map<String, String>> roundTrip() {
+        return SourcesCodec.fromJson(SourcesCodec.toJson(sources));
+    }
+}
@@ -0,0 +1,165 @@
+package com.altf4.figuremortis;
+
+import com.altf4.figuremortis.db.SourcesCodec;
+import com.altf4.figuremortis.service.GroundedResponse;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A day list, already sorted and grouped, stored compactly so it can be shown without a network
+ * round-trip or the sort-and-group pass, e.g. by the home-screen widget. A few rows may carry a
+ * prefetched biography.
+ * <p>
+ * Binary layout: version:u8, date, row count:i32, then per row type:u8, year, text, and a
+ * has-biography flag:u8 followed by name, birth, details and sources JSON. Strings are
+ * length-prefixed UTF-8, -1 for null.
+ */
+public final class DaySnapshot {
+
+    private static final int VERSION = 1;
+    // Far above any day list or biography; guards against allocating garbage lengths from a
+    // corrupt file.
+    private static final int MAX_STRING_BYTES = 1024 * 1024;
+
+    /** The day the list is for, as yyyy-MM-dd. */
+    public final String date;
+    public final List<Row> rows;
+
+    /**
+     * One header or death row.
+     */
+    public static final class Row {
+        /** {@link DisplayItem#TYPE_HEADER} or {@link DisplayItem#TYPE_DEATH}. */
+        public final int type;
+        public final String year;
+        /** The death's text; null for a header. */
+        public final String text;
+        /** A prefetched biography, or null. */
+        public final GroundedResponse biography;
+
+        public Row(int type, String year, String text, GroundedResponse biography) {
+            this.type = type;
+            this.year = year;
+            this.text = text;
+            this.biography = biography;
+        }
+    }
+
+    public DaySnapshot(String date, List<Row> rows) {
+        this.date = date;
+        this.rows = Collections.unmodifiableList(rows);
+    }
+
+    /**
+     * @param items       The day list from {@link DisplayItem#fromDeaths}.
+     * @param biographies Prefetched biographies keyed by position in {@code items}; may be empty.
+     */
+    public static DaySnapshot fromDisplayItems(String date, List<DisplayItem> items, Map<Integer, GroundedResponse> biographies) {
+        List<Row> rows = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            DisplayItem item = items.get(i);
+            if (item.getType() == DisplayItem.TYPE_HEADER) {
+                rows.add(new Row(DisplayItem.TYPE_HEADER, item.getYear(), null, null));
+            } else {
+                Death death = item.getDeath();
+                rows.add(new Row(DisplayItem.TYPE_DEATH, death.getYear(), death.getText(), biographies.get(i)));
+            }
+        }
+        return new DaySnapshot(date, rows);
+    }
+
+    public void writeTo(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeByte(VERSION);
+        writeString(data, date);
+        data.writeInt(rows.size());
+        for (Row row : rows) {
+            data.writeByte(row.type);
+            writeString(data, row.year);
+            writeString(data, row.text);
+            data.writeBoolean(row.biography != null);
+            if (row.biography != null) {
+                writeString(data, row.biography.name);
+                writeString(data, row.biography.birth);
+                writeString(data, row.biography.details);
+                writeString(data, SourcesCodec.toJson(row.biography.sources));
+            }
+        }
+        data.flush();
+    }
+
+    /**
+     * @throws IOException If the snapshot is truncated, corrupt or from a newer version.
+     */
+    public static DaySnapshot readFrom(InputStream in) throws IOException {
+        try {
+            return read(new DataInputStream(in));
+        } catch (RuntimeException e) {
+            // Gson rejecting a garbled sources string.
+            throw new IOException("Corrupt snapshot", e);
+        }
+    }
+
+    private static DaySnapshot read(DataInputStream data) throws IOException {
+        int version = data.readUnsignedByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported snapshot version " + version);
+        }
+        String date = readString(data);
+        int count = data.readInt();
+        if (count < 0) {
+            throw new IOException("Corrupt snapshot row count " + count);
+        }
+        List<Row> rows = new ArrayList<>(Math.min(count, 1024));
+        for (int i = 0; i < count; i++) {
+            int type = data.readUnsignedByte();
+            if (type != DisplayItem.TYPE_HEADER && type != DisplayItem.TYPE_DEATH) {
+                throw new IOException("Corrupt snapshot row type " + type);
+            }
+            String year = readString(data);
+            String text = readString(data);
+            GroundedResponse biography = null;
+            if (data.readBoolean()) {
+                biography = new GroundedResponse();
+                biography.name = readString(data);
+                biography.birth = readString(data);
+                biography.details = readString(data);
+                biography.sources = SourcesCodec.fromJson(readString(data));
+            }
+            rows.add(new Row(type, year, text, biography));
+        }
+        return new DaySnapshot(date, rows);
+    }
+
+    private static void writeString(DataOutputStream data, String value) throws IOException {
+        if (value == null) {
+            data.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        data.writeInt(bytes.length);
+        data.write(bytes);
+    }
+
+    private static String readString(DataInputStream data) throws IOException {
+        int length = data.readInt();
+        if (length == -1) {
+            return null;
+        }
+        if (length < 0 || length > MAX_STRING_BYTES) {
+            throw new IOException("Corrupt snapshot string length " + length);
+        }
+        byte[] bytes = new byte[length];
+        data.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,75 @@
+package com.altf4.figuremortis;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class DisplayItem {
+    public static final int TYPE_HEADER = 0;
+    public static final int TYPE_DEATH = 1;
+
+    private int type;
+    private String year;
+    private Death death;
+
+    public DisplayItem(int type, String year) {
+        this.type = type;
+        this.year = year;
+    }
+
+    public DisplayItem(int type, Death death) {
+        this.type = type;
+        this.death = death;
+    }
+
+    public int getType() {
+        return type;
+    }
+
+    public String getYear() {
+        return year;
+    }
+
+    public Death getDeath() {
+        return death;
+    }
+
+    /**
+     * Sorts deaths by year and groups them under a header item per year. Sorts the given list in place.
+     *
+     * @param deaths The deaths for a day, in any order.
+     * @return Header and death items ready for the list adapter.
+     */
+    public static List<DisplayItem> fromDeaths(List<Death> deaths) {
+        // Sort deaths by year
+        Collections.sort(deaths, new Comparator<Death>() {
+            @Override
+            public int compare(Death d1, Death d2) {
+                return Integer.compare(Integer.parseInt(d1.getYear()), Integer.parseInt(d2.getYear()));
+            }
+        });
+
+        // Group deaths by year
+        Map<String, List<Death>> deathsByYear = new LinkedHashMap<>();
+        for (Death death : deaths) {
+            String year = death.getYear();
+            if (!deathsByYear.containsKey(year)) {
+                deathsByYear.put(year, new ArrayList<>());
+            }
+            deathsByYear.get(year).add(death);
+        }
+
+        // Create DisplayItems
+        List<DisplayItem> displayItems = new ArrayList<>();
+        for (Map.Entry<String, List<Death>> entry : deathsByYear.entrySet()) {
+            displayItems.add(new DisplayItem(TYPE_HEADER, entry.getKey()));
+            for (Death death : entry.getValue()) {
+                displayItems.add(new DisplayItem(TYPE_DEATH, death));
+            }
+        }
+        return displayItems;
+    }
+}
@@ -0,0 +1,176 @@
+package com.altf4.figuremortis;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * A prefix index over a day list built by {@link DisplayItem#fromDeaths}, for type-ahead filtering.
+ * <p>
+ * Every word of a death's text, plus its year, becomes a token. The distinct tokens are kept in one
+ * sorted array with a posting list of row positions each, so a query word is two binary searches
+ * for its prefix range followed by a union of the postings; no row text is scanned per keystroke.
+ * Matching is case- and accent-insensitive. Build it off the UI thread; queries are cheap and
+ * the index is immutable, so they can run anywhere.
+ */
+public final class DisplayItemIndex {
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final List<DisplayItem> items;
+    // For every row, the position of its year header, or -1 for a header itself.
+    private final int[] headerOf;
+    private final String[] tokens;
+    // Ascending row positions per token, aligned with tokens.
+    private final int[][] postings;
+    private final int[] allPositions;
+
+    private DisplayItemIndex(List<DisplayItem> items, int[] headerOf, String[] tokens, int[][] postings) {
+        this.items = items;
+        this.headerOf = headerOf;
+        this.tokens = tokens;
+        this.postings = postings;
+        this.allPositions = new int[items.size()];
+        for (int i = 0; i < allPositions.length; i++) {
+            allPositions[i] = i;
+        }
+    }
+
+    /**
+     * @param items Header and death rows as returned by {@link DisplayItem#fromDeaths}.
+     */
+    public static DisplayItemIndex build(List<DisplayItem> items) {
+        int[] headerOf = new int[items.size()];
+        Map<String, BitSet> tokenRows = new TreeMap<>();
+        int header = -1;
+        for (int position = 0; position < items.size(); position++) {
+            DisplayItem item = items.get(position);
+            if (item.getType() == DisplayItem.TYPE_HEADER) {
+                header = position;
+                headerOf[position] = -1;
+                continue;
+            }
+            headerOf[position] = header;
+            Death death = item.getDeath();
+            addTokens(tokenRows, death.getText(), position);
+            addTokens(tokenRows, death.getYear(), position);
+        }
+
+        String[] tokens = new String[tokenRows.size()];
+        int[][] postings = new int[tokenRows.size()][];
+        int i = 0;
+        for (Map.Entry<String, BitSet> entry : tokenRows.entrySet()) {
+            tokens[i] = entry.getKey();
+            postings[i] = entry.getValue().stream().toArray();
+            i++;
+        }
+        return new DisplayItemIndex(items, headerOf, tokens, postings);
+    }
+
+    public List<DisplayItem> getItems() {
+        return items;
+    }
+
+    /**
+     * Finds the rows whose words start with every word of the query, in list order. A year header
+     * is included only when at least one row under it matches.
+     *
+     * @return Ascending positions into {@link #getItems()}; every position for a blank query.
+     */
+    public int[] positions(String query) {
+        String[] words = tokenize(query);
+        if (words.length == 0) {
+            return allPositions;
+        }
+
+        BitSet matches = null;
+        for (String word : words) {
+            BitSet rows = rowsWithPrefix(word);
+            if (matches == null) {
+                matches = rows;
+            } else {
+                matches.and(rows);
+            }
+            if (matches.isEmpty()) {
+                return new int[0];
+            }
+        }
+
+        int[] result = new int[matches.cardinality() * 2];
+        int count = 0;
+        int lastHeader = -1;
+        for (int row = matches.nextSetBit(0); row >= 0; row = matches.nextSetBit(row + 1)) {
+            int header = headerOf[row];
+            if (header >= 0 && header != lastHeader) {
+                result[count++] = header;
+                lastHeader = header;
+            }
+            result[count++] = row;
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    private BitSet rowsWithPrefix(String prefix) {
+        BitSet rows = new BitSet(items.size());
+        int from = lowerBound(prefix);
+        // Tokens never contain U+FFFF, so this bounds every token starting with the prefix.
+        int to = lowerBound(prefix + Character.MAX_VALUE);
+        for (int i = from; i < to; i++) {
+            for (int row : postings[i]) {
+                rows.set(row);
+            }
+        }
+        return rows;
+    }
+
+    private int lowerBound(String key) {
+        int low = 0;
+        int high = tokens.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (tokens[mid].compareTo(key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static void addTokens(Map<String, BitSet> tokenRows, String text, int position) {
+        for (String token : tokenize(text)) {
+            BitSet rows = tokenRows.get(token);
+            if (rows == null) {
+                rows = new BitSet();
+                tokenRows.put(token, rows);
+            }
+            rows.set(position);
+        }
+    }
+
+    /**
+     * Splits text into lower-case words with diacritics removed, e.g. "Kurt Godel, logician" into
+     * ["kurt", "godel", "logician"].
+     */
+    static String[] tokenize(String text) {
+        if (text == null || text.isEmpty()) {
+            return new String[0];
+        }
+        String folded = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        List<String> words = new ArrayList<>();
+        for (String word : SEPARATORS.split(folded)) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+        return words.toArray(new String[0]);
+    }
+}
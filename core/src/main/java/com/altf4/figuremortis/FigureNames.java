@@ -0,0 +1,27 @@
+package com.altf4.figuremortis;
+
+/**
+ * Compares figure names word by word, ignoring case, accents and punctuation, the same way the
+ * type-ahead filter reads them, so a regenerated biography can be checked against the saved one.
+ */
+public final class FigureNames {
+
+    private FigureNames() {
+    }
+
+    /**
+     * @return The name's words, lower-cased with diacritics and punctuation removed, separated by
+     * single spaces; empty for a null or blank name.
+     */
+    public static String normalize(String name) {
+        return String.join(" ", DisplayItemIndex.tokenize(name));
+    }
+
+    /**
+     * @return True if both names are present and normalize to the same words.
+     */
+    public static boolean sameFigure(String a, String b) {
+        String normalized = normalize(a);
+        return !normalized.isEmpty() && normalized.equals(normalize(b));
+    }
+}
@@ -0,0 +1,218 @@
+package com.altf4.figuremortis.db;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compresses a biography's details or sources JSON for storage, using Deflate with a preset
+ * dictionary shared by every row. Saved biographies are short and alike, so on its own Deflate
+ * finds little to reuse within one of them; the dictionary supplies the phrasing and URL prefixes
+ * they have in common.
+ *
+ * <p>An encoded value is a format byte, the id of the dictionary it was compressed with, the
+ * length of the UTF-8 text, then a zlib stream. Old rows keep their dictionary id, so a newer
+ * dictionary never makes them unreadable.
+ */
+public final class BiographyCodec {
+
+    // The format byte of every value this version writes; a new layout gets a new one.
+    public static final byte FORMAT_DEFLATE_DICTIONARY = 1;
+    private static final int HEADER_SIZE = 1 + 4 + 4;
+
+    // Deflate only looks back 32 KiB, and the dictionary is hashed again for every value written.
+    public static final int DEFAULT_DICTIONARY_SIZE = 16 * 1024;
+
+    // Lengths of the segments the trainer considers, in characters; each starts at a word boundary.
+    private static final int[] SEGMENT_LENGTHS = {12, 24, 48};
+
+    // Deflater and Inflater hold native buffers. One of each per thread serves every codec, as
+    // the dictionary is set again for each value, so the number of them is bounded by the threads
+    // that touch the database, not by how many helpers or codecs were ever built.
+    private static final ThreadLocal<Deflater> DEFLATERS = ThreadLocal.withInitial(() -> new Deflater(Deflater.BEST_COMPRESSION));
+    private static final ThreadLocal<Inflater> INFLATERS = ThreadLocal.withInitial(Inflater::new);
+    private static final ThreadLocal<byte[]> BUFFERS = ThreadLocal.withInitial(() -> new byte[8192]);
+
+    private final int dictionaryId;
+    private final byte[] dictionary;
+
+    public BiographyCodec(int dictionaryId, byte[] dictionary) {
+        this.dictionaryId = dictionaryId;
+        this.dictionary = dictionary.clone();
+    }
+
+    public int getDictionaryId() {
+        return dictionaryId;
+    }
+
+    /**
+     * @return True if the value was written by {@link #encode}.
+     */
+    public static boolean isEncoded(byte[] value) {
+        return value != null && value.length > HEADER_SIZE && value[0] == FORMAT_DEFLATE_DICTIONARY;
+    }
+
+    /**
+     * @return The id of the dictionary an encoded value needs to be decoded.
+     */
+    public static int dictionaryIdOf(byte[] value) {
+        if (!isEncoded(value)) {
+            throw new IllegalArgumentException("Not an encoded biography");
+        }
+        return ByteBuffer.wrap(value, 1, 4).getInt();
+    }
+
+    public byte[] encode(String text) {
+        byte[] utf8 = text.getBytes(StandardCharsets.UTF_8);
+        Deflater deflater = DEFLATERS.get();
+        deflater.reset();
+        deflater.setDictionary(dictionary);
+        deflater.setInput(utf8);
+        deflater.finish();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(HEADER_SIZE + utf8.length / 2 + 16);
+        out.write(FORMAT_DEFLATE_DICTIONARY);
+        writeInt(out, dictionaryId);
+        writeInt(out, utf8.length);
+        byte[] buffer = BUFFERS.get();
+        while (!deflater.finished()) {
+            out.write(buffer, 0, deflater.deflate(buffer));
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * @throws IllegalArgumentException If the value was not encoded with this codec's dictionary,
+     *                                  or is corrupt.
+     */
+    public String decode(byte[] value) {
+        if (dictionaryIdOf(value) != dictionaryId) {
+            throw new IllegalArgumentException("Encoded with dictionary " + dictionaryIdOf(value) + ", not " + dictionaryId);
+        }
+        int length = ByteBuffer.wrap(value, 5, 4).getInt();
+        byte[] utf8 = new byte[length];
+        Inflater inflater = INFLATERS.get();
+        inflater.reset();
+        inflater.setInput(value, HEADER_SIZE, value.length - HEADER_SIZE);
+        try {
+            int read = 0;
+            while (read < length) {
+                int n = inflater.inflate(utf8, read, length - read);
+                if (n == 0) {
+                    if (inflater.needsDictionary()) {
+                        inflater.setDictionary(dictionary);
+                    } else if (inflater.finished() || inflater.needsInput()) {
+                        throw new IllegalArgumentException("Truncated biography: " + read + " of " + length + " bytes");
+                    }
+                }
+                read += n;
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("Corrupt biography", e);
+        }
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Builds a dictionary from sample biographies and sources. Counts the segments starting at a
+     * word boundary that occur in more than one sample, then packs the most valuable ones, which
+     * Deflate reaches most cheaply when they sit at the end of the dictionary.
+     *
+     * @param maxSize The dictionary size in bytes, e.g. {@link #DEFAULT_DICTIONARY_SIZE}.
+     * @return The dictionary, empty if the samples share nothing worth keeping.
+     */
+    public static byte[] train(Iterable<String> samples, int maxSize) {
+        Map<String, int[]> sampleCounts = new HashMap<>();
+        int sampleCount = 0;
+        for (String sample : samples) {
+            if (sample == null) {
+                continue;
+            }
+            sampleCount++;
+            Set<String> seen = new HashSet<>();
+            for (int i = 0; i < sample.length(); i++) {
+                if (i > 0 && !isBoundary(sample.charAt(i - 1))) {
+                    continue;
+                }
+                for (int length : SEGMENT_LENGTHS) {
+                    if (i + length > sample.length()) {
+                        break;
+                    }
+                    String segment = sample.substring(i, i + length);
+                    if (seen.add(segment)) {
+                        sampleCounts.computeIfAbsent(segment, k -> new int[1])[0]++;
+                    }
+                }
+            }
+        }
+
+        // A segment found in a single sample only helps when that biography is saved again.
+        int minCount = sampleCount > 1 ? 2 : 1;
+        List<Map.Entry<String, int[]>> ranked = new ArrayList<>();
+        for (Map.Entry<String, int[]> entry : sampleCounts.entrySet()) {
+            if (entry.getValue()[0] >= minCount) {
+                ranked.add(entry);
+            }
+        }
+        ranked.sort((a, b) -> {
+            long scoreA = (long) a.getValue()[0] * a.getKey().length();
+            long scoreB = (long) b.getValue()[0] * b.getKey().length();
+            return scoreA != scoreB ? Long.compare(scoreB, scoreA) : a.getKey().compareTo(b.getKey());
+        });
+
+        List<byte[]> picked = new ArrayList<>();
+        // Every candidate-length substring of the segments picked so far, so a covered candidate
+        // is found in constant time rather than by scanning the whole dictionary.
+        Set<String> covered = new HashSet<>();
+        int size = 0;
+        for (Map.Entry<String, int[]> entry : ranked) {
+            String segment = entry.getKey();
+            // Shorter segments are mostly covered by a longer one already picked.
+            if (covered.contains(segment)) {
+                continue;
+            }
+            byte[] bytes = segment.getBytes(StandardCharsets.UTF_8);
+            if (size + bytes.length > maxSize) {
+                if (maxSize - size < SEGMENT_LENGTHS[0]) {
+                    break;
+                }
+                continue;
+            }
+            picked.add(bytes);
+            for (int length : SEGMENT_LENGTHS) {
+                for (int i = 0; i + length <= segment.length(); i++) {
+                    covered.add(segment.substring(i, i + length));
+                }
+            }
+            size += bytes.length;
+        }
+
+        byte[] dictionary = new byte[size];
+        int end = size;
+        for (byte[] bytes : picked) {
+            end -= bytes.length;
+            System.arraycopy(bytes, 0, dictionary, end, bytes.length);
+        }
+        return dictionary;
+    }
+
+    private static boolean isBoundary(char c) {
+        return !Character.isLetterOrDigit(c);
+    }
+
+    private static void writeInt(ByteArrayOutputStream out, int value) {
+        out.write(value >>> 24);
+        out.write(value >>> 16);
+        out.write(value >>> 8);
+        out.write(value);
+    }
+}
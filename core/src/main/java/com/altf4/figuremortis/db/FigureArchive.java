@@ -0,0 +1,225 @@
+package com.altf4.figuremortis.db;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The backup format for saved figures: a gzip stream holding a small header followed by one
+ * length-prefixed record per figure, read and written one record at a time so memory use does not
+ * grow with the size of the library.
+ * <p>
+ * Layout, big-endian, inside the gzip stream:
+ * <pre>
+ * "FMAR" version:u8 count:i32          count is -1 if unknown
+ * ( length:i32 field* )*               length of the fields that follow, in bytes
+ * -1:i32                               end of archive
+ * field := length:i32 utf8-bytes       length is -1 for null
+ * </pre>
+ * Records currently hold name, birth date, death year, details and the sources JSON, in that
+ * order. Readers skip any bytes after the fields they know, so later versions can append fields.
+ * An archive without the end marker, or with fewer or more records than its count, is rejected.
+ */
+public final class FigureArchive {
+
+    private static final byte[] MAGIC = {'F', 'M', 'A', 'R'};
+    private static final int VERSION = 1;
+    private static final int END = -1;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    // Guards against allocating garbage lengths from a corrupt or foreign file.
+    private static final int MAX_RECORD_BYTES = 16 * 1024 * 1024;
+
+    private FigureArchive() {
+    }
+
+    /**
+     * One saved figure, with its sources still as the JSON text stored in the database.
+     */
+    public static final class Record {
+        public String name;
+        public String birthDate;
+        public String deathYear;
+        public String details;
+        public String sourcesJson;
+    }
+
+    /**
+     * Writes records to an archive. {@link #finish()} writes the end marker once every record is
+     * written; {@link #close()} without it leaves an archive that is rejected on import, so an
+     * export that fails part-way never passes for a complete backup.
+     */
+    public static final class Writer implements Closeable {
+        private final DataOutputStream out;
+        private boolean finished;
+        // Reused for every record so its length can be written first.
+        private final ByteArrayOutputStream record = new ByteArrayOutputStream(4096);
+        private final DataOutputStream recordOut = new DataOutputStream(record);
+
+        /**
+         * @param count Number of records that will be written, or -1 if unknown. Import reports
+         *              progress against it and rejects an archive holding a different number.
+         */
+        public Writer(OutputStream out, int count) throws IOException {
+            this.out = new DataOutputStream(new GZIPOutputStream(new BufferedOutputStream(out, BUFFER_SIZE), BUFFER_SIZE) {
+                {
+                    // Biographies are prose; the fastest level already gets most of the ratio.
+                    def.setLevel(Deflater.BEST_SPEED);
+                }
+            });
+            this.out.write(MAGIC);
+            this.out.writeByte(VERSION);
+            this.out.writeInt(count);
+        }
+
+        public void write(Record figure) throws IOException {
+            record.reset();
+            writeField(figure.name);
+            writeField(figure.birthDate);
+            writeField(figure.deathYear);
+            writeField(figure.details);
+            writeField(figure.sourcesJson);
+            out.writeInt(record.size());
+            record.writeTo(out);
+        }
+
+        private void writeField(String value) throws IOException {
+            if (value == null) {
+                recordOut.writeInt(-1);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            recordOut.writeInt(bytes.length);
+            recordOut.write(bytes);
+        }
+
+        /**
+         * Writes the end marker and finishes the gzip stream. Call once, after the last record.
+         */
+        public void finish() throws IOException {
+            out.writeInt(END);
+            finished = true;
+            out.close();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!finished) {
+                out.close();
+            }
+        }
+    }
+
+    /**
+     * Reads records from an archive, one at a time.
+     */
+    public static final class Reader implements Closeable {
+        private final DataInputStream in;
+        private final int count;
+        private int read;
+        private byte[] buffer = new byte[4096];
+        private int position;
+        private int limit;
+
+        public Reader(InputStream in) throws IOException {
+            this.in = new DataInputStream(new GZIPInputStream(new BufferedInputStream(in, BUFFER_SIZE), BUFFER_SIZE));
+            byte[] magic = new byte[MAGIC.length];
+            try {
+                this.in.readFully(magic);
+                for (int i = 0; i < MAGIC.length; i++) {
+                    if (magic[i] != MAGIC[i]) {
+                        throw new IOException("Not a Figure Mortis archive");
+                    }
+                }
+                int version = this.in.readUnsignedByte();
+                if (version > VERSION) {
+                    throw new IOException("Unsupported archive version " + version);
+                }
+                this.count = this.in.readInt();
+            } catch (EOFException e) {
+                throw new IOException("Not a Figure Mortis archive", e);
+            }
+        }
+
+        /**
+         * @return The number of records the archive says it holds, or -1 if unknown.
+         */
+        public int getCount() {
+            return count;
+        }
+
+        /**
+         * Reads the next record into {@code figure}, reusing it to avoid an allocation per row.
+         *
+         * @return False at the end of the archive.
+         * @throws IOException If the archive is truncated or corrupt, or its end marker comes
+         *                     before or after the number of records in its header.
+         */
+        public boolean next(Record figure) throws IOException {
+            int length;
+            try {
+                length = in.readInt();
+                if (length == END) {
+                    if (count != -1 && read != count) {
+                        throw new IOException("Archive holds " + read + " of " + count + " records");
+                    }
+                    return false;
+                }
+                if (count != -1 && read == count) {
+                    throw new IOException("Archive holds more than " + count + " records");
+                }
+                if (length < 0 || length > MAX_RECORD_BYTES) {
+                    throw new IOException("Corrupt archive record length " + length);
+                }
+                if (buffer.length < length) {
+                    buffer = new byte[Math.max(length, buffer.length * 2)];
+                }
+                in.readFully(buffer, 0, length);
+            } catch (EOFException e) {
+                throw new IOException("Archive is truncated", e);
+            }
+            position = 0;
+            limit = length;
+            figure.name = readField();
+            figure.birthDate = readField();
+            figure.deathYear = readField();
+            figure.details = readField();
+            figure.sourcesJson = readField();
+            read++;
+            return true;
+        }
+
+        private String readField() throws IOException {
+            if (limit - position < 4) {
+                throw new IOException("Corrupt archive record");
+            }
+            int length = ((buffer[position] & 0xff) << 24) | ((buffer[position + 1] & 0xff) << 16)
+                    | ((buffer[position + 2] & 0xff) << 8) | (buffer[position + 3] & 0xff);
+            position += 4;
+            if (length == -1) {
+                return null;
+            }
+            if (length < 0 || length > limit - position) {
+                throw new IOException("Corrupt archive record");
+            }
+            String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.altf4.figuremortis.db;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Converts a biography's sources, e.g. [{"1": "url1"}, {"2": "url2"}], to and from the JSON text
+ * stored in the database and passed between screens. Reuses one Gson and one resolved Type.
+ */
+public final class SourcesCodec {
+
+    private static final Gson GSON = new Gson();
+    private static final Type SOURCES_TYPE = new TypeToken<List<Map<String, String>>>(){}.getType();
+
+    private SourcesCodec() {
+    }
+
+    public static String toJson(List<Map<String, String>> sources) {
+        return GSON.toJson(sources);
+    }
+
+    /**
+     * @return The decoded sources, or null for a null or empty string.
+     */
+    public static List<Map<String, String>> fromJson(String json) {
+        if (json == null || json.isEmpty()) {
+            return null;
+        }
+        return GSON.fromJson(json, SOURCES_TYPE);
+    }
+}
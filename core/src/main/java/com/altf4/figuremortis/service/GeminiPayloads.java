@@ -0,0 +1,248 @@
+package com.altf4.figuremortis.service;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.util.List;
+
+/**
+ * Builds Gemini generateContent request bodies and reads the generated text back out of responses.
+ * Pure JSON work with no Android or network dependencies, so it can be benchmarked on the JVM.
+ */
+public final class GeminiPayloads {
+
+    private static final Gson GSON = new Gson();
+
+    // The field in which each object of a multi-figure answer echoes its figure's list number.
+    public static final String BATCH_KEY = "key";
+
+    private GeminiPayloads() {
+    }
+
+    /**
+     * Builds the JSON payload for the Gemini API request.
+     *
+     * @param userInput The user's query to be inserted into the prompt.
+     * @return The request body as a JSON object.
+     */
+    public static JsonObject buildRequest(String userInput) {
+        // --- System Instruction ---
+        JsonObject systemInstructionText = new JsonObject();
+        systemInstructionText.addProperty("text", "You are an expert historian who is capable of finding details about a historical figure from their name and the date of their death. You must use grounding search tool to verify the information. Always return the response with this JSON format:\n\n{\n\"name\" : \"Full name of the historical figure\",\n\"birth\" : \"Birth date if there's any information\",\n\"details\": \"Detailed 3-paragraph biography about the person (clean format with source annotation)\",\n\"sources\": [{\"source number\": \"Links of the information sources\"}]\n}");
+        JsonArray systemInstructionParts = new JsonArray();
+        systemInstructionParts.add(systemInstructionText);
+        JsonObject systemInstruction = new JsonObject();
+        systemInstruction.add("parts", systemInstructionParts);
+
+        // --- Few-Shot Example (User) ---
+        JsonObject userShotText = new JsonObject();
+        userShotText.addProperty("text", "Who was John III, pope of the Catholic Church that was deceased in 574");
+        JsonArray userShotParts = new JsonArray();
+        userShotParts.add(userShotText);
+        JsonObject userShot = new JsonObject();
+        userShot.addProperty("role", "user");
+        userShot.add("parts", userShotParts);
+
+        // --- Few-Shot Example (Model) ---
+        JsonObject modelShotText = new JsonObject();
+        modelShotText.addProperty("text", "```json\n{\n\"name\": \"John III\",\n\"birth\": \"Around 530 AD [3]\",\n\"details\": \"John III, born Catelinus in Rome, was the Pope of the Catholic Church from July 17, 561, to his death on July 13, 574 [1, 3, 5]. Born to a distinguished family, his father, Anastasius, held the title of illustris [1, 3]. His papacy occurred during the Lombard invasion of Italy, a period of significant upheaval, resulting in the destruction of many records from his reign [1, 2, 3].\\n\\nDespite the challenges of his time, John III is remembered as a magnanimous pontiff who was dedicated to the welfare of the people [1]. In one notable act, he intervened on behalf of two bishops, Salonius of Embrun and Sagittarius of Gap, who had been condemned at a synod in Lyons. King Guntram of Burgundy believed they were unjustly condemned and appealed to John, who decided they should be restored to their sees [1, 5].\\n\\nDuring the Lombard invasion, John III sought assistance from Narses, the governor of Naples, to defend Rome [2, 3]. He even retreated to the catacombs of Praetextatus for several months, where he continued to perform ordinations [1]. After Narses' death, he returned to the Lateran Palace and, with a newfound appreciation for the catacombs, ordered their repair and ensured they received the necessities for Mass [1]. He was buried in St. Peter's [1].\",\n\"sources\": [\n  {\n    \"1\": \"[https://example.com/source1](https://example.com/source1)\"\n  },\n  {\n    \"2\": \"[https://example.com/source2](https://example.com/source2)\"\n  },\n  {\n    \"3\": \"[https://example.com/source3](https://example.com/source3)\"\n  },\n  {\n    \"4\": \"[https://example.com/source4](https://example.com/source4)\"\n  },\n  {\n    \"5\": \"[https://example.com/source5](https://example.com/source5)\"\n  }\n]\n}```");
+        JsonArray modelShotParts = new JsonArray();
+        modelShotParts.add(modelShotText);
+        JsonObject modelShot = new JsonObject();
+        modelShot.addProperty("role", "model");
+        modelShot.add("parts", modelShotParts);
+
+        // --- Actual User Query ---
+        JsonObject userMessageText = new JsonObject();
+        userMessageText.addProperty("text", userInput);
+        JsonArray userMessageParts = new JsonArray();
+        userMessageParts.add(userMessageText);
+        JsonObject userMessage = new JsonObject();
+        userMessage.addProperty("role", "user");
+        userMessage.add("parts", userMessageParts);
+
+        // --- Contents Array ---
+        JsonArray contents = new JsonArray();
+        contents.add(userShot);
+        contents.add(modelShot);
+        contents.add(userMessage);
+
+        // --- Tools ---
+        JsonObject googleSearchTool = new JsonObject();
+        googleSearchTool.add("google_search", new JsonObject()); // Empty object enables the tool
+        JsonArray tools = new JsonArray();
+        tools.add(googleSearchTool);
+
+        // --- Generation Config ---
+        JsonObject generationConfig = new JsonObject();
+        generationConfig.addProperty("temperature", 0.2);
+//        generationConfig.addProperty("responseMimeType", "application/json");
+
+        // --- Main Request Body ---
+        JsonObject requestBody = new JsonObject();
+        requestBody.add("systemInstruction", systemInstruction);
+        requestBody.add("contents", contents);
+        requestBody.add("tools", tools);
+        requestBody.add("generationConfig", generationConfig);
+
+        return requestBody;
+    }
+
+    /**
+     * Builds a single request asking for several figures at once. The few-shot example is shared,
+     * and the model is told to answer with a JSON array whose objects echo the figure's number
+     * from the list in a "{@value #BATCH_KEY}" field, so {@link #matchBatchItems} can pair them
+     * with the queries without trusting their order.
+     *
+     * @param userInputs The per-figure queries.
+     * @return The request body as a JSON object.
+     */
+    public static JsonObject buildBatchRequest(List<String> userInputs) {
+        StringBuilder prompt = new StringBuilder("Answer for each of the following historical figures. ")
+                .append("Return a JSON array with exactly one object per figure, each using the same JSON ")
+                .append("format as before plus a \"").append(BATCH_KEY)
+                .append("\" field holding the figure's number from this list:\n");
+        for (int i = 0; i < userInputs.size(); i++) {
+            prompt.append(i + 1).append(". ").append(userInputs.get(i)).append("\n");
+        }
+        return buildRequest(prompt.toString());
+    }
+
+    /**
+     * Pairs the objects of a multi-figure answer with the queries they were asked for, by the
+     * number each object echoes in its "{@value #BATCH_KEY}" field. A query gets null when no
+     * object names it, or when more than one does. Objects without a valid key are ignored, except
+     * that a lone object may answer a single query.
+     *
+     * @param generatedText The model's text for a {@link #buildBatchRequest} prompt.
+     * @param queryCount    The number of queries in that prompt.
+     * @return One entry per query, in query order.
+     */
+    public static JsonObject[] matchBatchItems(String generatedText, int queryCount) {
+        JsonObject[] matched = new JsonObject[queryCount];
+        JsonArray items;
+        try {
+            JsonElement root = new JsonParser().parse(stripCodeFence(generatedText));
+            if (root.isJsonArray()) {
+                items = root.getAsJsonArray();
+            } else if (root.isJsonObject()) {
+                items = new JsonArray();
+                items.add(root);
+            } else {
+                return matched;
+            }
+        } catch (RuntimeException e) {
+            return matched;
+        }
+
+        boolean[] conflicting = new boolean[queryCount];
+        for (JsonElement item : items) {
+            if (!item.isJsonObject()) {
+                continue;
+            }
+            JsonObject object = item.getAsJsonObject();
+            int index = batchKeyOf(object) - 1;
+            if (index == -2 && queryCount == 1 && items.size() == 1) {
+                index = 0;
+            }
+            if (index < 0 || index >= queryCount) {
+                continue;
+            }
+            if (matched[index] != null) {
+                conflicting[index] = true;
+            }
+            matched[index] = object;
+        }
+        for (int i = 0; i < queryCount; i++) {
+            if (conflicting[i]) {
+                matched[i] = null;
+            }
+        }
+        return matched;
+    }
+
+    /**
+     * @return The list number an answer object echoes, 0 if it is not a positive number, or -1
+     * if the object has none.
+     */
+    private static int batchKeyOf(JsonObject object) {
+        JsonElement key = object.get(BATCH_KEY);
+        if (key == null || !key.isJsonPrimitive()) {
+            return -1;
+        }
+        try {
+            return Math.max(0, Integer.parseInt(key.getAsString().trim()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Safely extracts the generated text from the full API response JSON.
+     * @param responseBodyString The complete JSON response string from the API.
+     * @return The text content, or null if not found.
+     */
+    public static String extractText(String responseBodyString) {
+        try {
+// Correct: Creating a new instance of JsonParser first
+            return extractText(new JsonParser().parse(responseBodyString).getAsJsonObject());
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * Safely extracts the generated text from an already parsed response object.
+     * @param responseJson A GenerateContentResponse object.
+     * @return The text content, or null if not found.
+     */
+    public static String extractText(JsonObject responseJson) {
+        try {
+            JsonArray candidates = responseJson.getAsJsonArray("candidates");
+
+            // FIX: Replaced !candidates.isEmpty() with candidates.size() > 0 for broader compatibility
+            if (candidates != null && candidates.size() > 0) {
+                JsonObject candidate = candidates.get(0).getAsJsonObject();
+                JsonObject content = candidate.getAsJsonObject("content");
+                JsonArray parts = content.getAsJsonArray("parts");
+
+                // FIX: Replaced !parts.isEmpty() with parts.size() > 0
+                if (parts != null && parts.size() > 0) {
+                    JsonObject part = parts.get(0).getAsJsonObject();
+                    // Ensure the 'text' field exists before trying to access it
+                    if (part.has("text")) {
+                        return part.get("text").getAsString();
+                    }
+                }
+            }
+        } catch (Exception e) {
+            // Malformed response; reported to the caller as missing text.
+        }
+        return null;
+    }
+
+    /**
+     * The model output might include markdown backticks for the JSON block, remove them.
+     */
+    public static String stripCodeFence(String generatedText) {
+        return generatedText.replace("```json", "").replace("```", "").trim();
+    }
+
+    /**
+     * Parses a complete generateContent response into a {@link GroundedResponse}.
+     *
+     * @param responseBodyString The full response body as a string.
+     * @return The parsed response.
+     * @throws Exception If the response has no generated text or the text is not valid JSON.
+     */
+    public static GroundedResponse parseGroundedResponse(String responseBodyString) throws Exception {
+        String generatedJsonText = extractText(responseBodyString);
+        if (generatedJsonText == null) {
+            throw new Exception("Could not extract generated text from API response.");
+        }
+        return GSON.fromJson(stripCodeFence(generatedJsonText), GroundedResponse.class);
+    }
+}
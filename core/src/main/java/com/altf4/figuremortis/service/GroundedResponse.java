@@ -0,0 +1,34 @@
+package com.altf4.figuremortis.service;
+
+import com.google.gson.annotations.SerializedName;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Data class to hold the final parsed JSON response from the Gemini API.
+ */
+public class GroundedResponse {
+    @SerializedName("name")
+    public String name;
+
+    @SerializedName("birth")
+    public String birth;
+
+    @SerializedName("details")
+    public String details;
+
+    // e.g., [{"1": "url1"}, {"2": "url2"}]
+    @SerializedName("sources")
+    public List<Map<String, String>> sources;
+
+    @Override
+    public String toString() {
+        return "GroundedResponse{" +
+                "name='" + name + '\'' +
+                ", birth='" + birth + '\'' +
+                ", details='" + details + '\'' +
+                ", sources=" + sources +
+                '}';
+    }
+}
@@ -0,0 +1,132 @@
+package com.altf4.figuremortis;
+
+import com.altf4.figuremortis.service.GroundedResponse;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class DaySnapshotTest {
+
+    private static Death death(String year, String text) {
+        Death death = new Death();
+        death.setYear(year);
+        death.setText(text);
+        return death;
+    }
+
+    private static DaySnapshot snapshot() {
+        List<Death> deaths = new ArrayList<>();
+        deaths.add(death("1978", "Kurt G\u00f6del, Austrian logician"));
+        deaths.add(death("1953", "Joseph Stalin, Soviet politician"));
+        List<DisplayItem> items = DisplayItem.fromDeaths(deaths);
+
+        GroundedResponse biography = new GroundedResponse();
+        biography.name = "Joseph Stalin";
+        biography.birth = "18 December 1878";
+        biography.details = "Soviet politician [1].";
+        biography.sources = Collections.singletonList(Collections.singletonMap("1", "https://example.com/stalin"));
+        // Rows: 0 header 1953, 1 Stalin, 2 header 1978, 3 Godel.
+        return DaySnapshot.fromDisplayItems("2026-03-05", items, Collections.singletonMap(1, biography));
+    }
+
+    private static byte[] bytes(DaySnapshot snapshot) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        snapshot.writeTo(out);
+        return out.toByteArray();
+    }
+
+    @Test
+    public void roundTrip() throws IOException {
+        DaySnapshot read = DaySnapshot.readFrom(new ByteArrayInputStream(bytes(snapshot())));
+
+        assertEquals("2026-03-05", read.date);
+        assertEquals(4, read.rows.size());
+
+        DaySnapshot.Row header = read.rows.get(0);
+        assertEquals(DisplayItem.TYPE_HEADER, header.type);
+        assertEquals("1953", header.year);
+        assertNull(header.text);
+        assertNull(header.biography);
+
+        DaySnapshot.Row stalin = read.rows.get(1);
+        assertEquals(DisplayItem.TYPE_DEATH, stalin.type);
+        assertEquals("Joseph Stalin, Soviet politician", stalin.text);
+        assertEquals("Joseph Stalin", stalin.biography.name);
+        assertEquals("18 December 1878", stalin.biography.birth);
+        assertEquals("Soviet politician [1].", stalin.biography.details);
+        assertEquals("https://example.com/stalin", stalin.biography.sources.get(0).get("1"));
+
+        DaySnapshot.Row godel = read.rows.get(3);
+        assertEquals("1978", godel.year);
+        assertEquals("Kurt G\u00f6del, Austrian logician", godel.text);
+        assertNull(godel.biography);
+    }
+
+    @Test
+    public void empty_roundTrips() throws IOException {
+        DaySnapshot empty = new DaySnapshot("2026-03-05", new ArrayList<>());
+        assertTrue(DaySnapshot.readFrom(new ByteArrayInputStream(bytes(empty))).rows.isEmpty());
+    }
+
+    @Test(expected = IOException.class)
+    public void truncated_isRejected() throws IOException {
+        byte[] bytes = bytes(snapshot());
+        DaySnapshot.readFrom(new ByteArrayInputStream(Arrays.copyOf(bytes, bytes.length - 10)));
+    }
+
+    @Test(expected = IOException.class)
+    public void newerVersion_isRejected() throws IOException {
+        byte[] bytes = bytes(snapshot());
+        bytes[0] = 2;
+        DaySnapshot.readFrom(new ByteArrayInputStream(bytes));
+    }
+
+    @Test(expected = IOException.class)
+    public void hugeStringLength_isRejectedBeforeAllocating() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeByte(1);
+        data.writeInt(Integer.MAX_VALUE - 8);
+        DaySnapshot.readFrom(new ByteArrayInputStream(out.toByteArray()));
+    }
+
+    @Test(expected = IOException.class)
+    public void unknownRowType_isRejected() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeByte(1);
+        data.writeInt(-1);
+        data.writeInt(1);
+        data.writeByte(7);
+        DaySnapshot.readFrom(new ByteArrayInputStream(out.toByteArray()));
+    }
+
+    @Test(expected = IOException.class)
+    public void garbledSources_isRejected() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeByte(1);
+        data.writeInt(-1);
+        data.writeInt(1);
+        data.writeByte(DisplayItem.TYPE_DEATH);
+        data.writeInt(-1);
+        data.writeInt(-1);
+        data.writeBoolean(true);
+        data.writeInt(-1);
+        data.writeInt(-1);
+        data.writeInt(-1);
+        data.writeInt(3);
+        data.write(new byte[]{'[', '{', '!'});
+        DaySnapshot.readFrom(new ByteArrayInputStream(out.toByteArray()));
+    }
+}
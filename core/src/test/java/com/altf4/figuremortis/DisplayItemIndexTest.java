@@ -0,0 +1,82 @@
+package com.altf4.figuremortis;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class DisplayItemIndexTest {
+
+    private static Death death(String year, String text) {
+        Death death = new Death();
+        death.setYear(year);
+        death.setText(text);
+        return death;
+    }
+
+    /**
+     * Rows: 0 header 1901, 1 Queen Victoria, 2 header 1953, 3 Joseph Stalin, 4 Dylan Thomas,
+     * 5 header 1970, 6 Jose Maria (accented), 7 Charles de Gaulle.
+     */
+    private static DisplayItemIndex index() {
+        List<Death> deaths = new ArrayList<>();
+        deaths.add(death("1953", "Joseph Stalin, Soviet politician"));
+        deaths.add(death("1901", "Queen Victoria of the United Kingdom"));
+        deaths.add(death("1953", "Dylan Thomas, Welsh poet"));
+        deaths.add(death("1970", "Jos\u00e9 Mar\u00eda Arguedas, Peruvian poet"));
+        deaths.add(death("1970", "Charles de Gaulle, French general and politician"));
+        return DisplayItemIndex.build(DisplayItem.fromDeaths(deaths));
+    }
+
+    @Test
+    public void positions_prefixMatch_includesYearHeader() {
+        assertArrayEquals(new int[]{0, 1}, index().positions("vict"));
+    }
+
+    @Test
+    public void positions_headerWithoutMatchingRows_isExcluded() {
+        assertArrayEquals(new int[]{2, 4}, index().positions("welsh"));
+    }
+
+    @Test
+    public void positions_matchesAcrossYears_keepsListOrder() {
+        assertArrayEquals(new int[]{2, 3, 5, 7}, index().positions("politician"));
+    }
+
+    @Test
+    public void positions_multipleWords_mustAllMatch() {
+        DisplayItemIndex index = index();
+        assertArrayEquals(new int[]{2, 4, 5, 6}, index.positions("poet"));
+        assertArrayEquals(new int[]{5, 6}, index.positions("peruvian poet"));
+        assertArrayEquals(new int[0], index.positions("welsh politician"));
+    }
+
+    @Test
+    public void positions_ignoresDiacriticsAndCase() {
+        DisplayItemIndex index = index();
+        assertArrayEquals(new int[]{5, 6}, index.positions("jose maria"));
+        assertArrayEquals(new int[]{5, 6}, index.positions("JOS\u00c9 ARGUEDAS"));
+    }
+
+    @Test
+    public void positions_yearIsAWord() {
+        assertArrayEquals(new int[]{2, 3, 4}, index().positions("1953"));
+    }
+
+    @Test
+    public void positions_blankQuery_returnsEveryRow() {
+        DisplayItemIndex index = index();
+        int[] all = {0, 1, 2, 3, 4, 5, 6, 7};
+        assertArrayEquals(all, index.positions(""));
+        assertArrayEquals(all, index.positions("   "));
+        assertArrayEquals(all, index.positions(", -"));
+        assertArrayEquals(all, index.positions(null));
+    }
+
+    @Test
+    public void positions_noMatch_isEmpty() {
+        assertArrayEquals(new int[0], index().positions("zzz"));
+    }
+}
@@ -0,0 +1,23 @@
+package com.altf4.figuremortis;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class FigureNamesTest {
+
+    @Test
+    public void normalize_foldsCaseAccentsAndPunctuation() {
+        assertEquals("kurt godel", FigureNames.normalize("  Kurt G\u00f6del "));
+        assertEquals("martin luther king jr", FigureNames.normalize("Martin Luther King, Jr."));
+        assertEquals("", FigureNames.normalize(null));
+    }
+
+    @Test
+    public void sameFigure() {
+        assertTrue(FigureNames.sameFigure("Kurt G\u00f6del", "kurt godel"));
+        assertFalse(FigureNames.sameFigure("Kurt G\u00f6del", "Kurt Vonnegut"));
+        assertFalse(FigureNames.sameFigure("", ""));
+        assertFalse(FigureNames.sameFigure(null, "Kurt G\u00f6del"));
+    }
+}
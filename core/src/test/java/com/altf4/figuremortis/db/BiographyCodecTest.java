@@ -0,0 +1,125 @@
+package com.altf4.figuremortis.db;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class BiographyCodecTest {
+
+    private static final String DETAILS = "Kurt G\u00f6del was an Austrian logician, mathematician and "
+            + "philosopher [1]. He published his incompleteness theorems in 1931 [2].";
+
+    private static byte[] dictionary() {
+        List<String> samples = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            samples.add("Figure " + i + " was an Austrian logician and philosopher [1].");
+            samples.add("[{\"1\":\"https://en.wikipedia.org/wiki/Figure_" + i + "\"}]");
+        }
+        return BiographyCodec.train(samples, BiographyCodec.DEFAULT_DICTIONARY_SIZE);
+    }
+
+    @Test
+    public void roundTrip() {
+        BiographyCodec codec = new BiographyCodec(1, dictionary());
+        byte[] encoded = codec.encode(DETAILS);
+        assertTrue(BiographyCodec.isEncoded(encoded));
+        assertEquals(1, BiographyCodec.dictionaryIdOf(encoded));
+        assertEquals(DETAILS, codec.decode(encoded));
+    }
+
+    @Test
+    public void roundTrip_withoutDictionary() {
+        BiographyCodec codec = new BiographyCodec(3, new byte[0]);
+        assertEquals(DETAILS, codec.decode(codec.encode(DETAILS)));
+    }
+
+    @Test
+    public void emptyText_roundTrips() {
+        BiographyCodec codec = new BiographyCodec(1, dictionary());
+        assertEquals("", codec.decode(codec.encode("")));
+    }
+
+    @Test
+    public void nonAscii_roundTrips() {
+        BiographyCodec codec = new BiographyCodec(1, dictionary());
+        String text = "Jos\u00e9 Mar\u00eda Arguedas \u2014 \u4e2d\u6587 \ud83d\udcda";
+        assertEquals(text, codec.decode(codec.encode(text)));
+    }
+
+    @Test
+    public void trainedDictionary_compressesBetterThanNone() {
+        int plain = new BiographyCodec(1, new byte[0]).encode(DETAILS).length;
+        int trained = new BiographyCodec(1, dictionary()).encode(DETAILS).length;
+        assertTrue(trained < plain);
+    }
+
+    @Test
+    public void codecsSharingAThread_keepTheirOwnDictionary() {
+        BiographyCodec trained = new BiographyCodec(1, dictionary());
+        BiographyCodec plain = new BiographyCodec(2, new byte[0]);
+        byte[] a = trained.encode(DETAILS);
+        byte[] b = plain.encode(DETAILS);
+        assertEquals(DETAILS, plain.decode(b));
+        assertEquals(DETAILS, trained.decode(a));
+    }
+
+    @Test
+    public void concurrentUse_roundTrips() throws Exception {
+        BiographyCodec codec = new BiographyCodec(1, dictionary());
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 32; i++) {
+                String text = DETAILS + " #" + i;
+                results.add(executor.submit(() -> codec.decode(codec.encode(text))));
+            }
+            for (int i = 0; i < results.size(); i++) {
+                assertEquals(DETAILS + " #" + i, results.get(i).get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void train_skipsSegmentsCoveredByAPickedOne() {
+        // Only one 24-byte segment fits; every 12-byte one lies inside it.
+        String sample = "The quick brown fox runs";
+        byte[] dictionary = BiographyCodec.train(Arrays.asList(sample, sample), BiographyCodec.DEFAULT_DICTIONARY_SIZE);
+        assertEquals(sample, new String(dictionary, StandardCharsets.UTF_8));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void otherDictionaryId_isRejected() {
+        byte[] encoded = new BiographyCodec(1, dictionary()).encode(DETAILS);
+        new BiographyCodec(2, dictionary()).decode(encoded);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void sameIdDifferentDictionary_isRejected() {
+        byte[] encoded = new BiographyCodec(1, dictionary()).encode(DETAILS);
+        byte[] other = "another dictionary entirely, nothing like the first one".getBytes(StandardCharsets.UTF_8);
+        new BiographyCodec(1, other).decode(encoded);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void truncated_isRejected() {
+        BiographyCodec codec = new BiographyCodec(1, dictionary());
+        byte[] encoded = codec.encode(DETAILS);
+        codec.decode(Arrays.copyOf(encoded, encoded.length - 8));
+    }
+
+    @Test
+    public void plainText_isNotEncoded() {
+        assertFalse(BiographyCodec.isEncoded(DETAILS.getBytes(StandardCharsets.UTF_8)));
+        assertFalse(BiographyCodec.isEncoded(null));
+    }
+}
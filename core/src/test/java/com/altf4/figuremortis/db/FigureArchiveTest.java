@@ -0,0 +1,114 @@
+package com.altf4.figuremortis.db;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class FigureArchiveTest {
+
+    private static FigureArchive.Record record(String name, String deathYear) {
+        FigureArchive.Record record = new FigureArchive.Record();
+        record.name = name;
+        record.birthDate = "1 January 1900";
+        record.deathYear = deathYear;
+        record.details = "Details of " + name;
+        record.sourcesJson = "[{\"title\":\"a\",\"url\":\"https://example.com\"}]";
+        return record;
+    }
+
+    private static byte[] write(int count, FigureArchive.Record... records) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (FigureArchive.Writer writer = new FigureArchive.Writer(out, count)) {
+            for (FigureArchive.Record record : records) {
+                writer.write(record);
+            }
+            writer.finish();
+        }
+        return out.toByteArray();
+    }
+
+    private static int readAll(byte[] archive) throws IOException {
+        int read = 0;
+        try (FigureArchive.Reader reader = new FigureArchive.Reader(new ByteArrayInputStream(archive))) {
+            FigureArchive.Record record = new FigureArchive.Record();
+            while (reader.next(record)) {
+                read++;
+            }
+        }
+        return read;
+    }
+
+    @Test
+    public void roundTrip() throws IOException {
+        FigureArchive.Record nulls = new FigureArchive.Record();
+        nulls.name = "Jos\u00e9 Mar\u00eda Arguedas";
+        nulls.details = "";
+        byte[] archive = write(2, record("Kurt G\u00f6del", "1978"), nulls);
+
+        try (FigureArchive.Reader reader = new FigureArchive.Reader(new ByteArrayInputStream(archive))) {
+            assertEquals(2, reader.getCount());
+            FigureArchive.Record read = new FigureArchive.Record();
+
+            assertTrue(reader.next(read));
+            assertEquals("Kurt G\u00f6del", read.name);
+            assertEquals("1 January 1900", read.birthDate);
+            assertEquals("1978", read.deathYear);
+            assertEquals("Details of Kurt G\u00f6del", read.details);
+            assertEquals("[{\"title\":\"a\",\"url\":\"https://example.com\"}]", read.sourcesJson);
+
+            assertTrue(reader.next(read));
+            assertEquals("Jos\u00e9 Mar\u00eda Arguedas", read.name);
+            assertNull(read.birthDate);
+            assertNull(read.deathYear);
+            assertEquals("", read.details);
+            assertNull(read.sourcesJson);
+
+            assertFalse(reader.next(read));
+        }
+    }
+
+    @Test
+    public void unknownCount_readsEveryRecord() throws IOException {
+        assertEquals(3, readAll(write(-1, record("A", "1"), record("B", "2"), record("C", "3"))));
+    }
+
+    @Test
+    public void empty() throws IOException {
+        assertEquals(0, readAll(write(0)));
+    }
+
+    @Test(expected = IOException.class)
+    public void closedWithoutFinish_isRejected() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (FigureArchive.Writer writer = new FigureArchive.Writer(out, -1)) {
+            writer.write(record("A", "1"));
+        }
+        readAll(out.toByteArray());
+    }
+
+    @Test(expected = IOException.class)
+    public void fewerRecordsThanCount_isRejected() throws IOException {
+        readAll(write(3, record("A", "1"), record("B", "2")));
+    }
+
+    @Test(expected = IOException.class)
+    public void moreRecordsThanCount_isRejected() throws IOException {
+        readAll(write(1, record("A", "1"), record("B", "2")));
+    }
+
+    @Test(expected = IOException.class)
+    public void truncated_isRejected() throws IOException {
+        byte[] archive = write(2, record("A", "1"), record("B", "2"));
+        readAll(Arrays.copyOf(archive, archive.length / 2));
+    }
+
+    @Test(expected = IOException.class)
+    public void notAnArchive_isRejected() throws IOException {
+        readAll("not an archive".getBytes("UTF-8"));
+    }
+}
@@ -0,0 +1,101 @@
+package com.altf4.figuremortis.service;
+
+import com.google.gson.JsonObject;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class GeminiPayloadsTest {
+
+    private static String item(int key, String name) {
+        return "{\"key\": \"" + key + "\", \"name\": \"" + name + "\", \"details\": \"...\"}";
+    }
+
+    private static String nameOf(JsonObject item) {
+        return item.get("name").getAsString();
+    }
+
+    @Test
+    public void matchBatchItems_inOrder() {
+        JsonObject[] items = GeminiPayloads.matchBatchItems(
+                "[" + item(1, "A") + "," + item(2, "B") + "," + item(3, "C") + "]", 3);
+        assertEquals("A", nameOf(items[0]));
+        assertEquals("B", nameOf(items[1]));
+        assertEquals("C", nameOf(items[2]));
+    }
+
+    @Test
+    public void matchBatchItems_reordered_followsKeys() {
+        JsonObject[] items = GeminiPayloads.matchBatchItems(
+                "```json\n[" + item(3, "C") + "," + item(1, "A") + "," + item(2, "B") + "]```", 3);
+        assertEquals("A", nameOf(items[0]));
+        assertEquals("B", nameOf(items[1]));
+        assertEquals("C", nameOf(items[2]));
+    }
+
+    @Test
+    public void matchBatchItems_missingEntry_failsOnlyThatQuery() {
+        JsonObject[] items = GeminiPayloads.matchBatchItems("[" + item(1, "A") + "," + item(3, "C") + "]", 3);
+        assertEquals("A", nameOf(items[0]));
+        assertNull(items[1]);
+        assertEquals("C", nameOf(items[2]));
+    }
+
+    @Test
+    public void matchBatchItems_numericKey() {
+        JsonObject[] items = GeminiPayloads.matchBatchItems(
+                "[{\"key\": 2, \"name\": \"B\"}, {\"key\": 1, \"name\": \"A\"}]", 2);
+        assertEquals("A", nameOf(items[0]));
+        assertEquals("B", nameOf(items[1]));
+    }
+
+    @Test
+    public void matchBatchItems_duplicateKey_failsThatQuery() {
+        JsonObject[] items = GeminiPayloads.matchBatchItems(
+                "[" + item(1, "A") + "," + item(1, "B") + "," + item(2, "C") + "]", 2);
+        assertNull(items[0]);
+        assertEquals("C", nameOf(items[1]));
+    }
+
+    @Test
+    public void matchBatchItems_withoutKeys_areNotMatchedByPosition() {
+        JsonObject[] items = GeminiPayloads.matchBatchItems("[{\"name\": \"A\"}, {\"name\": \"B\"}]", 2);
+        assertNull(items[0]);
+        assertNull(items[1]);
+    }
+
+    @Test
+    public void matchBatchItems_outOfRangeKeys_areIgnored() {
+        JsonObject[] items = GeminiPayloads.matchBatchItems(
+                "[" + item(0, "Zero") + "," + item(3, "Three") + ",{\"key\": \"x\"}]", 2);
+        assertNull(items[0]);
+        assertNull(items[1]);
+    }
+
+    @Test
+    public void matchBatchItems_loneObjectAnswersSingleQuery() {
+        JsonObject[] items = GeminiPayloads.matchBatchItems("{\"name\": \"A\"}", 1);
+        assertEquals("A", nameOf(items[0]));
+    }
+
+    @Test
+    public void matchBatchItems_notJson_failsEveryQuery() {
+        JsonObject[] items = GeminiPayloads.matchBatchItems("Sorry, I cannot help with that.", 2);
+        assertEquals(2, items.length);
+        assertNull(items[0]);
+        assertNull(items[1]);
+    }
+
+    @Test
+    public void buildBatchRequest_numbersQueriesAndAsksForKey() {
+        String prompt = GeminiPayloads.buildBatchRequest(Arrays.asList("A that was deceased in 1900", "B that was deceased in 1901"))
+                .getAsJsonArray("contents").get(2).getAsJsonObject()
+                .getAsJsonArray("parts").get(0).getAsJsonObject().get("text").getAsString();
+        assertTrue(prompt.contains("\"" + GeminiPayloads.BATCH_KEY + "\""));
+        assertTrue(prompt.contains("1. A that was deceased in 1900\n"));
+        assertTrue(prompt.contains("2. B that was deceased in 1901\n"));
+    }
+}